@@ -0,0 +1,35 @@
+/*
+ * Copyright 2015 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package android.graphics;
+
+/**
+ * Shim of the framework class, so that the benchmarks can run on the JVM.
+ */
+public class Color {
+
+    public static final int TRANSPARENT = 0;
+    public static final int WHITE = 0xFFFFFFFF;
+
+    private Color() {
+    }
+
+    public static int parseColor(String colorString) {
+        long color = Long.parseLong(colorString.substring(1), 16);
+        if (colorString.length() == 7) {
+            color |= 0x00000000ff000000L;
+        }
+        return (int) color;
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2015 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package android.os;
+
+/**
+ * Shim of the framework class, so that the benchmarks can run on the JVM. Nothing is ever parcelled by the benchmarks.
+ */
+public final class Parcel {
+
+    private Parcel() {
+    }
+
+    public void writeString(String val) {
+        throw new UnsupportedOperationException();
+    }
+
+    public String readString() {
+        throw new UnsupportedOperationException();
+    }
+
+    public void writeInt(int val) {
+        throw new UnsupportedOperationException();
+    }
+
+    public int readInt() {
+        throw new UnsupportedOperationException();
+    }
+
+    public void writeParcelable(Parcelable p, int flags) {
+        throw new UnsupportedOperationException();
+    }
+
+    public <T extends Parcelable> T readParcelable(ClassLoader loader) {
+        throw new UnsupportedOperationException();
+    }
+}
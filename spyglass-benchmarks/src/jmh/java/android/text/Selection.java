@@ -0,0 +1,27 @@
+/*
+ * Copyright 2015 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package android.text;
+
+/**
+ * Shim of the framework class, so that the benchmarks can run on the JVM. Only the selection spans are provided.
+ */
+public class Selection {
+
+    public static final Object SELECTION_START = new Object();
+    public static final Object SELECTION_END = new Object();
+
+    private Selection() {
+    }
+}
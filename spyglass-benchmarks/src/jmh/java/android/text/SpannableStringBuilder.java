@@ -0,0 +1,380 @@
+/*
+ * Copyright 2015 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package android.text;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+
+/**
+ * Shim of the framework class, so that the benchmarks can run on the JVM.
+ * <p>
+ * As in the framework, the text is kept in a gap buffer, spans are kept in parallel arrays and every span is updated
+ * after each change. Unlike the framework, spans are not kept in an interval tree (so {@link #getSpans(int, int, Class)}
+ * examines every span), input filters are not applied and watchers attached as spans are not notified of changes.
+ * Results for the span queries of the framework class should therefore be treated as an upper bound.
+ */
+public class SpannableStringBuilder implements CharSequence, GetChars, Spannable, Editable, Appendable {
+
+    private static final int START_SHIFT = 4;
+    private static final int START_MASK = 0xF0;
+    private static final int END_MASK = 0x0F;
+    private static final int POINT = 2;
+
+    private char[] mText;
+    private int mGapStart;
+    private int mGapLength;
+
+    private Object[] mSpans = new Object[0];
+    private int[] mSpanStarts = new int[0];
+    private int[] mSpanEnds = new int[0];
+    private int[] mSpanFlags = new int[0];
+    private int mSpanCount;
+    private final IdentityHashMap<Object, Integer> mIndexOfSpan = new IdentityHashMap<>();
+
+    private InputFilter[] mFilters = new InputFilter[0];
+
+    public SpannableStringBuilder() {
+        this("");
+    }
+
+    public SpannableStringBuilder(CharSequence text) {
+        this(text, 0, text.length());
+    }
+
+    public SpannableStringBuilder(CharSequence text, int start, int end) {
+        int length = end - start;
+        mText = new char[Math.max(length * 2, 16)];
+        mGapStart = 0;
+        mGapLength = mText.length;
+        copyChars(text, start, end, 0);
+        copySpans(text, start, end, 0);
+    }
+
+    // --------------------------------------------------
+    // CharSequence Implementation
+    // --------------------------------------------------
+
+    @Override
+    public int length() {
+        return mText.length - mGapLength;
+    }
+
+    @Override
+    public char charAt(int where) {
+        return (where >= mGapStart) ? mText[where + mGapLength] : mText[where];
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return new SpannableStringBuilder(this, start, end);
+    }
+
+    @Override
+    public String toString() {
+        char[] buf = new char[length()];
+        getChars(0, buf.length, buf, 0);
+        return new String(buf);
+    }
+
+    @Override
+    public void getChars(int start, int end, char[] dest, int destoff) {
+        checkRange(start, end);
+        if (end <= mGapStart) {
+            System.arraycopy(mText, start, dest, destoff, end - start);
+        } else if (start >= mGapStart) {
+            System.arraycopy(mText, start + mGapLength, dest, destoff, end - start);
+        } else {
+            System.arraycopy(mText, start, dest, destoff, mGapStart - start);
+            System.arraycopy(mText, mGapStart + mGapLength, dest, destoff + (mGapStart - start), end - mGapStart);
+        }
+    }
+
+    // --------------------------------------------------
+    // Editable Implementation
+    // --------------------------------------------------
+
+    @Override
+    public SpannableStringBuilder replace(int start, int end, CharSequence tb, int tbstart, int tbend) {
+        checkRange(start, end);
+        int removed = end - start;
+        int inserted = tbend - tbstart;
+
+        // Replace the text, leaving the gap after the new text
+        moveGapTo(end);
+        mGapStart -= removed;
+        mGapLength += removed;
+        if (mGapLength < inserted) {
+            resizeFor(length() + inserted);
+        }
+        copyChars(tb, tbstart, tbend, start);
+
+        // Update the spans
+        for (int i = 0; i < mSpanCount; i++) {
+            int startFlag = (mSpanFlags[i] & START_MASK) >> START_SHIFT;
+            int endFlag = mSpanFlags[i] & END_MASK;
+            mSpanStarts[i] = updatedPosition(mSpanStarts[i], start, end, inserted, startFlag);
+            mSpanEnds[i] = updatedPosition(mSpanEnds[i], start, end, inserted, endFlag);
+        }
+        if (removed > 0) {
+            for (int i = mSpanCount - 1; i >= 0; i--) {
+                if ((mSpanFlags[i] & SPAN_EXCLUSIVE_EXCLUSIVE) == SPAN_EXCLUSIVE_EXCLUSIVE
+                        && mSpanStarts[i] == mSpanEnds[i]) {
+                    removeSpan(i);
+                }
+            }
+        }
+        copySpans(tb, tbstart, tbend, start);
+        return this;
+    }
+
+    @Override
+    public SpannableStringBuilder replace(int start, int end, CharSequence tb) {
+        return replace(start, end, tb, 0, tb.length());
+    }
+
+    @Override
+    public SpannableStringBuilder insert(int where, CharSequence tb, int start, int end) {
+        return replace(where, where, tb, start, end);
+    }
+
+    @Override
+    public SpannableStringBuilder insert(int where, CharSequence tb) {
+        return replace(where, where, tb, 0, tb.length());
+    }
+
+    @Override
+    public SpannableStringBuilder delete(int start, int end) {
+        return replace(start, end, "", 0, 0);
+    }
+
+    @Override
+    public SpannableStringBuilder append(CharSequence text) {
+        int length = length();
+        return replace(length, length, text, 0, text.length());
+    }
+
+    @Override
+    public SpannableStringBuilder append(CharSequence text, int start, int end) {
+        int length = length();
+        return replace(length, length, text, start, end);
+    }
+
+    @Override
+    public SpannableStringBuilder append(char text) {
+        return append(String.valueOf(text));
+    }
+
+    @Override
+    public void clear() {
+        replace(0, length(), "", 0, 0);
+    }
+
+    @Override
+    public void clearSpans() {
+        Arrays.fill(mSpans, 0, mSpanCount, null);
+        mSpanCount = 0;
+        mIndexOfSpan.clear();
+    }
+
+    @Override
+    public void setFilters(InputFilter[] filters) {
+        mFilters = filters;
+    }
+
+    @Override
+    public InputFilter[] getFilters() {
+        return mFilters;
+    }
+
+    // --------------------------------------------------
+    // Spannable Implementation
+    // --------------------------------------------------
+
+    @Override
+    public void setSpan(Object what, int start, int end, int flags) {
+        checkRange(start, end);
+        Integer index = mIndexOfSpan.get(what);
+        if (index != null) {
+            mSpanStarts[index] = start;
+            mSpanEnds[index] = end;
+            mSpanFlags[index] = flags;
+            return;
+        }
+
+        if (mSpanCount == mSpans.length) {
+            int capacity = Math.max(mSpanCount * 2, 16);
+            mSpans = Arrays.copyOf(mSpans, capacity);
+            mSpanStarts = Arrays.copyOf(mSpanStarts, capacity);
+            mSpanEnds = Arrays.copyOf(mSpanEnds, capacity);
+            mSpanFlags = Arrays.copyOf(mSpanFlags, capacity);
+        }
+        mSpans[mSpanCount] = what;
+        mSpanStarts[mSpanCount] = start;
+        mSpanEnds[mSpanCount] = end;
+        mSpanFlags[mSpanCount] = flags;
+        mIndexOfSpan.put(what, mSpanCount);
+        mSpanCount++;
+    }
+
+    @Override
+    public void removeSpan(Object what) {
+        Integer index = mIndexOfSpan.get(what);
+        if (index != null) {
+            removeSpan(index);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T[] getSpans(int queryStart, int queryEnd, Class<T> kind) {
+        if (kind == null) {
+            return (T[]) new Object[0];
+        }
+        int count = 0;
+        Object[] found = new Object[mSpanCount];
+        for (int i = 0; i < mSpanCount; i++) {
+            int spanStart = mSpanStarts[i];
+            int spanEnd = mSpanEnds[i];
+            if (spanStart > queryEnd || spanEnd < queryStart || !kind.isInstance(mSpans[i])) {
+                continue;
+            }
+            if (spanStart != spanEnd && queryStart != queryEnd && (spanStart == queryEnd || spanEnd == queryStart)) {
+                continue;
+            }
+            found[count++] = mSpans[i];
+        }
+        T[] spans = (T[]) Array.newInstance(kind, count);
+        System.arraycopy(found, 0, spans, 0, count);
+        return spans;
+    }
+
+    @Override
+    public int getSpanStart(Object what) {
+        Integer index = mIndexOfSpan.get(what);
+        return (index != null) ? mSpanStarts[index] : -1;
+    }
+
+    @Override
+    public int getSpanEnd(Object what) {
+        Integer index = mIndexOfSpan.get(what);
+        return (index != null) ? mSpanEnds[index] : -1;
+    }
+
+    @Override
+    public int getSpanFlags(Object what) {
+        Integer index = mIndexOfSpan.get(what);
+        return (index != null) ? mSpanFlags[index] : 0;
+    }
+
+    @Override
+    public int nextSpanTransition(int start, int limit, Class kind) {
+        for (int i = 0; i < mSpanCount; i++) {
+            if (kind != null && !kind.isInstance(mSpans[i])) {
+                continue;
+            }
+            if (mSpanStarts[i] > start && mSpanStarts[i] < limit) {
+                limit = mSpanStarts[i];
+            }
+            if (mSpanEnds[i] > start && mSpanEnds[i] < limit) {
+                limit = mSpanEnds[i];
+            }
+        }
+        return limit;
+    }
+
+    // --------------------------------------------------
+    // Private Helper Methods
+    // --------------------------------------------------
+
+    private void checkRange(int start, int end) {
+        if (start < 0 || end < start || end > length()) {
+            throw new IndexOutOfBoundsException("[" + start + ", " + end + ") outside of length " + length());
+        }
+    }
+
+    private void moveGapTo(int where) {
+        if (where < mGapStart) {
+            System.arraycopy(mText, where, mText, where + mGapLength, mGapStart - where);
+        } else if (where > mGapStart) {
+            System.arraycopy(mText, mGapStart + mGapLength, mText, mGapStart, where - mGapStart);
+        }
+        mGapStart = where;
+    }
+
+    private void resizeFor(int size) {
+        int afterGap = mText.length - (mGapStart + mGapLength);
+        char[] text = new char[Math.max(size * 2, 16)];
+        System.arraycopy(mText, 0, text, 0, mGapStart);
+        System.arraycopy(mText, mText.length - afterGap, text, text.length - afterGap, afterGap);
+        mGapLength = text.length - mGapStart - afterGap;
+        mText = text;
+    }
+
+    // Copies the given characters into the start of the gap, which must be at where
+    private void copyChars(CharSequence tb, int start, int end, int where) {
+        if (tb instanceof String) {
+            ((String) tb).getChars(start, end, mText, where);
+        } else if (tb instanceof GetChars) {
+            ((GetChars) tb).getChars(start, end, mText, where);
+        } else {
+            for (int i = start; i < end; i++) {
+                mText[where + i - start] = tb.charAt(i);
+            }
+        }
+        mGapStart += end - start;
+        mGapLength -= end - start;
+    }
+
+    private void copySpans(CharSequence tb, int start, int end, int where) {
+        if (!(tb instanceof Spanned)) {
+            return;
+        }
+        Spanned spanned = (Spanned) tb;
+        for (Object span : spanned.getSpans(start, end, Object.class)) {
+            int spanStart = Math.max(spanned.getSpanStart(span), start) - start + where;
+            int spanEnd = Math.min(spanned.getSpanEnd(span), end) - start + where;
+            setSpan(span, spanStart, spanEnd, spanned.getSpanFlags(span));
+        }
+    }
+
+    // Position of a span boundary after replacing the text between start and end with inserted characters
+    private static int updatedPosition(int position, int start, int end, int inserted, int flag) {
+        if (position > end) {
+            return position + inserted - (end - start);
+        } else if (position < start) {
+            return position;
+        } else if (start == end) {
+            // Insertion at the boundary moves points, but not marks
+            return (flag == POINT) ? position + inserted : position;
+        } else {
+            return (flag == POINT) ? start + inserted : start;
+        }
+    }
+
+    private void removeSpan(int index) {
+        mIndexOfSpan.remove(mSpans[index]);
+        int moved = mSpanCount - index - 1;
+        System.arraycopy(mSpans, index + 1, mSpans, index, moved);
+        System.arraycopy(mSpanStarts, index + 1, mSpanStarts, index, moved);
+        System.arraycopy(mSpanEnds, index + 1, mSpanEnds, index, moved);
+        System.arraycopy(mSpanFlags, index + 1, mSpanFlags, index, moved);
+        mSpanCount--;
+        mSpans[mSpanCount] = null;
+        for (int i = index; i < mSpanCount; i++) {
+            mIndexOfSpan.put(mSpans[i], i);
+        }
+    }
+}
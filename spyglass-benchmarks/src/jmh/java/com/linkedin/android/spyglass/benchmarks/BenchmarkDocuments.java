@@ -0,0 +1,109 @@
+/*
+ * Copyright 2015 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package com.linkedin.android.spyglass.benchmarks;
+
+import android.text.Spanned;
+
+import androidx.annotation.NonNull;
+
+import com.linkedin.android.spyglass.mentions.MentionSpan;
+import com.linkedin.android.spyglass.mentions.MentionSpanConfig;
+import com.linkedin.android.spyglass.mentions.MentionsEditable;
+
+import java.util.Random;
+
+/**
+ * Generates the documents that the benchmarks run against. A document is made up of random words, with every
+ * sixteenth word typed as an explicit query (i.e. "@word"), and with mentions spread evenly through it. Documents are
+ * always generated from the same seed, so that results can be compared between runs.
+ */
+final class BenchmarkDocuments {
+
+    private static final long SEED = 42;
+
+    // Number of words between explicit queries
+    private static final int EXPLICIT_QUERY_INTERVAL = 16;
+
+    private BenchmarkDocuments() {
+    }
+
+    /**
+     * Creates a new document.
+     *
+     * @param size         number of characters in the document (the last word may run past it)
+     * @param mentionCount number of mentions in the document, at most one per word
+     * @param lineLength   number of characters in each line, or 0 for a document with a single line
+     * @return the document
+     */
+    @NonNull
+    static MentionsEditable create(int size, int mentionCount, int lineLength) {
+        Random random = new Random(SEED);
+        StringBuilder builder = new StringBuilder(size + 16);
+        int[] wordStarts = new int[size / 2 + 1];
+        int[] wordEnds = new int[size / 2 + 1];
+        int numWords = 0;
+        int lineStart = 0;
+        while (builder.length() < size) {
+            if (builder.length() > 0) {
+                if (lineLength > 0 && builder.length() - lineStart >= lineLength) {
+                    builder.append('\n');
+                    lineStart = builder.length();
+                } else {
+                    builder.append(' ');
+                }
+            }
+            if (numWords % EXPLICIT_QUERY_INTERVAL == EXPLICIT_QUERY_INTERVAL - 1) {
+                builder.append('@');
+            }
+            wordStarts[numWords] = builder.length();
+            int wordLength = 2 + random.nextInt(8);
+            for (int i = 0; i < wordLength; i++) {
+                builder.append((char) ('a' + random.nextInt(26)));
+            }
+            wordEnds[numWords] = builder.length();
+            numWords++;
+        }
+
+        MentionsEditable text = new MentionsEditable(builder);
+        MentionSpanConfig config = new MentionSpanConfig.Builder().build();
+        int count = Math.min(mentionCount, numWords);
+        for (int i = 0; i < count; i++) {
+            int word = (int) ((long) i * numWords / count);
+            int start = wordStarts[word];
+            int end = wordEnds[word];
+            BenchmarkMention mention = new BenchmarkMention(i, builder.substring(start, end));
+            text.setSpan(new MentionSpan(mention, config, start, end), start, end, Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+        }
+        return text;
+    }
+
+    /**
+     * Creates the cursor positions that the benchmarks cycle through, so that each invocation examines a different
+     * part of the document.
+     *
+     * @param length the length of the document
+     * @param count  the number of positions, which must be a power of two
+     * @return positions between 0 and length (inclusive)
+     */
+    @NonNull
+    static int[] createCursors(int length, int count) {
+        Random random = new Random(SEED);
+        int[] cursors = new int[count];
+        for (int i = 0; i < count; i++) {
+            cursors[i] = random.nextInt(length + 1);
+        }
+        return cursors;
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2015 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package com.linkedin.android.spyglass.benchmarks;
+
+import android.os.Parcel;
+
+import androidx.annotation.NonNull;
+
+import com.linkedin.android.spyglass.mentions.Mentionable;
+
+/**
+ * Simple {@link Mentionable} used for the mentions within the benchmark documents.
+ */
+class BenchmarkMention implements Mentionable {
+
+    private final int mId;
+    private final String mName;
+
+    BenchmarkMention(int id, @NonNull String name) {
+        mId = id;
+        mName = name;
+    }
+
+    @NonNull
+    @Override
+    public String getTextForDisplayMode(@NonNull MentionDisplayMode mode) {
+        return (mode == MentionDisplayMode.NONE) ? "" : mName;
+    }
+
+    @NonNull
+    @Override
+    public MentionDeleteStyle getDeleteStyle() {
+        return MentionDeleteStyle.FULL_DELETE;
+    }
+
+    @Override
+    public int getSuggestibleId() {
+        return mId;
+    }
+
+    @NonNull
+    @Override
+    public String getSuggestiblePrimaryText() {
+        return mName;
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        dest.writeInt(mId);
+        dest.writeString(mName);
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2015 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package com.linkedin.android.spyglass.benchmarks;
+
+import com.linkedin.android.spyglass.mentions.MentionSpan;
+import com.linkedin.android.spyglass.mentions.MentionsEditable;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the span and line queries of the {@link MentionsEditable}, and for the cost of keeping them up to
+ * date as the text changes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MentionsEditableBenchmark {
+
+    // Number of cursor positions to cycle through (must be a power of two)
+    private static final int NUM_CURSORS = 1024;
+
+    @Param({"1024", "32768", "1048576"})
+    public int documentSize;
+
+    @Param({"0", "50", "5000"})
+    public int mentionCount;
+
+    // Number of characters in each line, or 0 for a document with a single line
+    @Param({"0", "80"})
+    public int lineLength;
+
+    private MentionsEditable mText;
+    private int[] mCursors;
+    private int mNext;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        mText = BenchmarkDocuments.create(documentSize, mentionCount, lineLength);
+        mCursors = BenchmarkDocuments.createCursors(mText.length(), NUM_CURSORS);
+    }
+
+    @Benchmark
+    public MentionSpan getMentionSpanAtOffset() {
+        return mText.getMentionSpanAtOffset(mCursors[nextIndex()]);
+    }
+
+    @Benchmark
+    public MentionSpan getMentionSpanStartingAt() {
+        return mText.getMentionSpanStartingAt(mCursors[nextIndex()]);
+    }
+
+    @Benchmark
+    public int getClosestMentionEndBefore() {
+        return mText.getClosestMentionEndBefore(mCursors[nextIndex()]);
+    }
+
+    @Benchmark
+    public int getClosestMentionStartAfter() {
+        return mText.getClosestMentionStartAfter(mCursors[nextIndex()]);
+    }
+
+    @Benchmark
+    public List<MentionSpan> getMentionSpans() {
+        return mText.getMentionSpans();
+    }
+
+    @Benchmark
+    public int getLineStart() {
+        return mText.getLineStart(mCursors[nextIndex()]);
+    }
+
+    /**
+     * Types a character at the cursor and deletes it again, so that the document does not grow.
+     */
+    @Benchmark
+    public int insertAndDelete() {
+        int cursor = mCursors[nextIndex()];
+        mText.insert(cursor, "a");
+        mText.delete(cursor, cursor + 1);
+        return mText.length();
+    }
+
+    private int nextIndex() {
+        int i = mNext;
+        mNext = (i + 1) & (NUM_CURSORS - 1);
+        return i;
+    }
+}
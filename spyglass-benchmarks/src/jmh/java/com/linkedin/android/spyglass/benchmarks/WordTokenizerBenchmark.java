@@ -0,0 +1,129 @@
+/*
+ * Copyright 2015 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package com.linkedin.android.spyglass.benchmarks;
+
+import com.linkedin.android.spyglass.mentions.MentionsEditable;
+import com.linkedin.android.spyglass.tokenization.impl.WordTokenizer;
+import com.linkedin.android.spyglass.tokenization.impl.WordTokenizerConfig;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the {@link WordTokenizer}, looking up the token at a different cursor position in each invocation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WordTokenizerBenchmark {
+
+    // Number of cursor positions to cycle through (must be a power of two)
+    private static final int NUM_CURSORS = 1024;
+
+    @Param({"1024", "32768", "1048576"})
+    public int documentSize;
+
+    @Param({"0", "50", "5000"})
+    public int mentionCount;
+
+    // Number of characters in each line, or 0 for a document with a single line
+    @Param({"0", "80"})
+    public int lineLength;
+
+    private WordTokenizer mTokenizer;
+    private MentionsEditable mText;
+    private int[] mCursors;
+    private int[] mTokenStarts;
+    private int[] mTokenEnds;
+    private int mNext;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        WordTokenizerConfig config = new WordTokenizerConfig.Builder()
+                .setLineSeparator("\n")
+                .setWordBreakChars(" .\n")
+                .setMaxNumKeywords(2)
+                .build();
+        mTokenizer = new WordTokenizer(config);
+        mText = BenchmarkDocuments.create(documentSize, mentionCount, lineLength);
+        mCursors = BenchmarkDocuments.createCursors(mText.length(), NUM_CURSORS);
+        mTokenStarts = new int[NUM_CURSORS];
+        mTokenEnds = new int[NUM_CURSORS];
+        for (int i = 0; i < NUM_CURSORS; i++) {
+            mTokenStarts[i] = mTokenizer.findTokenStart(mText, mCursors[i]);
+            mTokenEnds[i] = mTokenizer.findTokenEnd(mText, mCursors[i]);
+        }
+    }
+
+    @Benchmark
+    public int findTokenStart() {
+        return mTokenizer.findTokenStart(mText, mCursors[nextIndex()]);
+    }
+
+    @Benchmark
+    public int findTokenEnd() {
+        return mTokenizer.findTokenEnd(mText, mCursors[nextIndex()]);
+    }
+
+    @Benchmark
+    public boolean isValidMention() {
+        int i = nextIndex();
+        return mTokenizer.isValidMention(mText, mTokenStarts[i], mTokenEnds[i]);
+    }
+
+    @Benchmark
+    public char getExplicitChar() {
+        return mTokenizer.getExplicitChar(mText, mCursors[nextIndex()]);
+    }
+
+    /**
+     * A keystroke, as seen by the tokenizer within the {@link com.linkedin.android.spyglass.ui.MentionsEditText}: a
+     * character is typed at the cursor, and the token at the cursor is found and validated. The character is deleted
+     * again afterwards, so that the document does not grow.
+     */
+    @Benchmark
+    public boolean typeCharacter() {
+        int cursor = mCursors[nextIndex()];
+        mText.insert(cursor, "a");
+        mTokenizer.onTextChanged(mText, cursor, 0, 1);
+        int start = mTokenizer.findTokenStart(mText, cursor + 1);
+        int end = mTokenizer.findTokenEnd(mText, cursor + 1);
+        boolean valid = mTokenizer.isValidMention(mText, start, end);
+        mText.delete(cursor, cursor + 1);
+        mTokenizer.onTextChanged(mText, cursor, 1, 0);
+        return valid;
+    }
+
+    private int nextIndex() {
+        int i = mNext;
+        mNext = (i + 1) & (NUM_CURSORS - 1);
+        return i;
+    }
+}
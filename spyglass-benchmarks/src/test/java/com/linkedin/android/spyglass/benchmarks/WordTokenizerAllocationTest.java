@@ -0,0 +1,149 @@
+/*
+ * Copyright 2015 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package com.linkedin.android.spyglass.benchmarks;
+
+import com.linkedin.android.spyglass.mentions.MentionsEditable;
+import com.linkedin.android.spyglass.tokenization.impl.WordTokenizer;
+import com.linkedin.android.spyglass.tokenization.impl.WordTokenizerConfig;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.IntConsumer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that the {@link WordTokenizer} does not allocate anything on the calls it receives for each keystroke, over
+ * the same documents as the {@link WordTokenizerBenchmark}.
+ * <p>
+ * Allocations are counted with {@link com.sun.management.ThreadMXBean#getThreadAllocatedBytes(long)}, after warming
+ * up so that the code has been compiled. Escape analysis is turned off for the tests (see build.gradle), so that
+ * allocations the JIT happens to remove on the JVM (but which ART would make) are still counted.
+ */
+public class WordTokenizerAllocationTest {
+
+    // Number of cursor positions to cycle through (must be a power of two)
+    private static final int NUM_CURSORS = 1024;
+
+    // Number of times to run through the cursors before counting allocations
+    private static final int WARMUP_ROUNDS = 20;
+
+    // Sizes, mention counts and line lengths of the documents to check (see BenchmarkDocuments)
+    private static final int[][] DOCUMENTS = {
+            {1024, 0, 0},
+            {32768, 50, 80},
+            {32768, 5000, 0},
+            {1048576, 5000, 80},
+    };
+
+    private final com.sun.management.ThreadMXBean mThreadBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private WordTokenizer mTokenizer;
+    private MentionsEditable mText;
+    private int[] mCursors;
+    private int[] mTokenStarts;
+    private int[] mTokenEnds;
+
+    // Results are accumulated here, so that the calls cannot be optimized away
+    private long mSink;
+
+    @Before
+    public void setUp() {
+        assertTrue("Allocation counting is not supported by this JVM", mThreadBean.isThreadAllocatedMemorySupported());
+        mThreadBean.setThreadAllocatedMemoryEnabled(true);
+
+        WordTokenizerConfig config = new WordTokenizerConfig.Builder()
+                .setLineSeparator("\n")
+                .setWordBreakChars(" .\n")
+                .setMaxNumKeywords(2)
+                .build();
+        mTokenizer = new WordTokenizer(config);
+    }
+
+    @Test
+    public void findTokenStartDoesNotAllocate() {
+        assertDoesNotAllocate("findTokenStart", i -> mSink += mTokenizer.findTokenStart(mText, mCursors[i]));
+    }
+
+    @Test
+    public void findTokenEndDoesNotAllocate() {
+        assertDoesNotAllocate("findTokenEnd", i -> mSink += mTokenizer.findTokenEnd(mText, mCursors[i]));
+    }
+
+    @Test
+    public void isValidMentionDoesNotAllocate() {
+        assertDoesNotAllocate("isValidMention",
+                i -> mSink += mTokenizer.isValidMention(mText, mTokenStarts[i], mTokenEnds[i]) ? 1 : 0);
+    }
+
+    @Test
+    public void getExplicitCharDoesNotAllocate() {
+        assertDoesNotAllocate("getExplicitChar", i -> mSink += mTokenizer.getExplicitChar(mText, mCursors[i]));
+    }
+
+    // --------------------------------------------------
+    // Private Helper Methods
+    // --------------------------------------------------
+
+    /**
+     * Runs the call for every cursor position in each of the documents, and fails if it allocated anything.
+     *
+     * @param name the name of the call, for the failure message
+     * @param call the call to check, given the index of the cursor position
+     */
+    private void assertDoesNotAllocate(String name, IntConsumer call) {
+        for (int[] document : DOCUMENTS) {
+            loadDocument(document[0], document[1], document[2]);
+            for (int round = 0; round < WARMUP_ROUNDS; round++) {
+                runAll(call);
+            }
+
+            // Subtract whatever reading the counter allocates itself
+            long overhead = allocatedBytes();
+            overhead = allocatedBytes() - overhead;
+
+            long before = allocatedBytes();
+            runAll(call);
+            long allocated = allocatedBytes() - before - overhead;
+            assertEquals(name + " allocated memory for a document of " + document[0] + " characters with "
+                    + document[1] + " mentions and a line length of " + document[2], 0, Math.max(allocated, 0));
+        }
+    }
+
+    private void loadDocument(int size, int mentionCount, int lineLength) {
+        mText = BenchmarkDocuments.create(size, mentionCount, lineLength);
+        mCursors = BenchmarkDocuments.createCursors(mText.length(), NUM_CURSORS);
+        mTokenStarts = new int[NUM_CURSORS];
+        mTokenEnds = new int[NUM_CURSORS];
+        for (int i = 0; i < NUM_CURSORS; i++) {
+            mTokenStarts[i] = mTokenizer.findTokenStart(mText, mCursors[i]);
+            mTokenEnds[i] = mTokenizer.findTokenEnd(mText, mCursors[i]);
+        }
+    }
+
+    private void runAll(IntConsumer call) {
+        for (int i = 0; i < NUM_CURSORS; i++) {
+            call.accept(i);
+        }
+    }
+
+    private long allocatedBytes() {
+        return mThreadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
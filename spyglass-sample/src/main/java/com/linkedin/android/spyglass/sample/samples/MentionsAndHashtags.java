@@ -18,8 +18,7 @@ import android.content.Context;
 import android.content.Intent;
 import android.content.res.Resources;
 import android.os.Bundle;
-import android.os.Handler;
-import android.os.Looper;
+import android.os.SystemClock;
 import android.util.TypedValue;
 import android.view.LayoutInflater;
 import android.view.Menu;
@@ -38,10 +37,9 @@ import com.linkedin.android.spyglass.mentions.Mentionable;
 import com.linkedin.android.spyglass.sample.R;
 import com.linkedin.android.spyglass.sample.data.models.Hashtag;
 import com.linkedin.android.spyglass.sample.data.models.Person;
-import com.linkedin.android.spyglass.suggestions.SuggestionsResult;
 import com.linkedin.android.spyglass.suggestions.impl.BasicSuggestionsListBuilder;
 import com.linkedin.android.spyglass.suggestions.interfaces.Suggestible;
-import com.linkedin.android.spyglass.suggestions.interfaces.SuggestionsResultListener;
+import com.linkedin.android.spyglass.suggestions.interfaces.SuggestionProvider;
 import com.linkedin.android.spyglass.tokenization.QueryToken;
 import com.linkedin.android.spyglass.tokenization.impl.WordTokenizer;
 import com.linkedin.android.spyglass.tokenization.impl.WordTokenizerConfig;
@@ -49,15 +47,15 @@ import com.linkedin.android.spyglass.tokenization.interfaces.MentionClickReceive
 import com.linkedin.android.spyglass.tokenization.interfaces.QueryTokenReceiver;
 import com.linkedin.android.spyglass.ui.MentionsEditorView;
 
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
 public class MentionsAndHashtags extends AppCompatActivity
         implements QueryTokenReceiver, MentionClickReceiver {
 
-    private static final int PERSON_DELAY = 1000;
-    private static final int HASHTAG_DELAY = 1000;
+    // The people are local, but the hashtags stand in for a remote search, so they are returned with some latency
+    private static final int HASHTAG_LATENCY = 1000;
+    private static final int HASHTAG_DEADLINE = 2000;
 
     private final WordTokenizerConfig tokenizerConfig = new WordTokenizerConfig
             .Builder()
@@ -65,6 +63,7 @@ public class MentionsAndHashtags extends AppCompatActivity
             .setMaxNumKeywords(2)
             .setWordBreakChars(" ,.")
             .setExplicitChars("@#")
+            .setTriggerRule("#", 2, 1)
             .build();
 
     private static final String PERSON_BUCKET = "people";
@@ -92,6 +91,9 @@ public class MentionsAndHashtags extends AppCompatActivity
 
         people = new Person.PersonLoader(getResources());
         hashtags = new Hashtag.HashtagLoader(getResources());
+
+        editor.addSuggestionProvider(new PersonProvider());
+        editor.addSuggestionProvider(new HashtagProvider(), HASHTAG_DEADLINE);
     }
 
     public boolean onCreateOptionsMenu(Menu menu) {
@@ -116,31 +118,8 @@ public class MentionsAndHashtags extends AppCompatActivity
     @NonNull
     @Override
     public List<String> onQueryReceived(final @NonNull QueryToken queryToken) {
-        final List<String> buckets = new ArrayList<>();
-        final SuggestionsResultListener listener = editor;
-        final Handler handler = new Handler(Looper.getMainLooper());
-
-        if (queryToken.getExplicitChar() == PERSON_EXPLICIT_CHAR && queryToken.getKeywords().length() > 0) {
-            buckets.add(PERSON_BUCKET);
-            handler.postDelayed(() -> {
-                List<Person> suggestions = people.getSuggestions(queryToken);
-                Collections.sort(suggestions, (p1, p2) -> p1.getFullName().compareToIgnoreCase(p2.getFullName()));
-                listener.onReceiveSuggestionsResult(new SuggestionsResult(queryToken, suggestions),
-                        PERSON_BUCKET);
-            }, PERSON_DELAY);
-        }
-
-        if (queryToken.getExplicitChar() == HASHTAG_EXPLICIT_CHAR && queryToken.getKeywords().length() > 0) {
-            buckets.add(HASHTAG_BUCKET);
-            handler.postDelayed(() -> {
-                List<Hashtag> suggestions = hashtags.getSuggestions(queryToken);
-                Collections.sort(suggestions, (h1, h2) -> h1.getName().compareToIgnoreCase(h2.getName()));
-                listener.onReceiveSuggestionsResult(new SuggestionsResult(queryToken, suggestions),
-                        HASHTAG_BUCKET);
-            }, HASHTAG_DELAY);
-        }
-
-        return buckets;
+        // Note: All of the suggestions come from the providers
+        return Collections.emptyList();
     }
 
     @Override
@@ -169,8 +148,68 @@ public class MentionsAndHashtags extends AppCompatActivity
         }
     }
 
+    private class PersonProvider implements SuggestionProvider {
+
+        @NonNull
+        @Override
+        public String getBucket() {
+            return PERSON_BUCKET;
+        }
+
+        @Override
+        public boolean canProvideSuggestions(@NonNull QueryToken queryToken) {
+            return queryToken.getExplicitChar() == PERSON_EXPLICIT_CHAR && queryToken.getKeywords().length() > 0;
+        }
+
+        @Override
+        public void provideSuggestions(@NonNull QueryToken queryToken, @NonNull Callback callback) {
+            List<Person> suggestions = people.getSuggestions(queryToken);
+            Collections.sort(suggestions, (p1, p2) -> p1.getFullName().compareToIgnoreCase(p2.getFullName()));
+            callback.onSuggestionsReady(suggestions);
+        }
+    }
+
+    private class HashtagProvider implements SuggestionProvider {
+
+        @NonNull
+        @Override
+        public String getBucket() {
+            return HASHTAG_BUCKET;
+        }
+
+        @Override
+        public boolean canProvideSuggestions(@NonNull QueryToken queryToken) {
+            return queryToken.getExplicitChar() == HASHTAG_EXPLICIT_CHAR && queryToken.getKeywords().length() > 0;
+        }
+
+        @Override
+        public void provideSuggestions(@NonNull QueryToken queryToken, @NonNull Callback callback) {
+            // Fake the latency of a remote search
+            SystemClock.sleep(HASHTAG_LATENCY);
+            if (queryToken.isCancelled()) {
+                return;
+            }
+            List<Hashtag> suggestions = hashtags.getSuggestions(queryToken);
+            Collections.sort(suggestions, (h1, h2) -> h1.getName().compareToIgnoreCase(h2.getName()));
+            callback.onSuggestionsReady(suggestions);
+        }
+    }
+
     private class CustomSuggestionsListBuilder extends BasicSuggestionsListBuilder {
 
+        private static final int VIEW_TYPE_PERSON = 0;
+        private static final int VIEW_TYPE_HASHTAG = 1;
+
+        @Override
+        public int getViewTypeCount() {
+            return 2;
+        }
+
+        @Override
+        public int getItemViewType(@NonNull Suggestible suggestion) {
+            return (suggestion instanceof Hashtag) ? VIEW_TYPE_HASHTAG : VIEW_TYPE_PERSON;
+        }
+
         @NonNull
         @Override
         public View getView(@NonNull Suggestible suggestion,
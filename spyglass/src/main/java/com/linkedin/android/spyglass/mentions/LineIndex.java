@@ -0,0 +1,270 @@
+/*
+* Copyright 2015 LinkedIn Corp. All rights reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*/
+
+package com.linkedin.android.spyglass.mentions;
+
+import androidx.annotation.NonNull;
+
+import java.util.Arrays;
+
+/**
+ * Sorted table of the line breaks ('\n') within a {@link MentionsEditable}, used to find the bounds of the line
+ * containing an offset in O(log lines) time instead of scanning the text.
+ * <p>
+ * The table is updated from the edit deltas passed through {@link MentionsEditable#replace(int, int, CharSequence,
+ * int, int)}. Offsets after an edit are shifted lazily: entries at or after {@link #mShiftIndex} are stored without
+ * the pending {@link #mShiftDelta}, so repeated edits at the same place (i.e. typing) do not touch the rest of the
+ * table.
+ * <p>
+ * While an edit is in progress (for example, when a {@link android.text.TextWatcher} queries the text from within
+ * replace), the table still describes the text before the edit. Queries then treat the replaced region as a window
+ * that is scanned directly, and shift the entries after it by the change in length. This gives the right answer
+ * whether or not the framework has applied the edit yet, and regardless of any input filters that changed the
+ * inserted text.
+ */
+final class LineIndex {
+
+    private static final char LINE_BREAK = '\n';
+
+    private final CharSequence mText;
+
+    // Offsets of every line break, in increasing order
+    private int[] mBreaks = new int[16];
+    private int mSize = 0;
+
+    // Entries at index >= mShiftIndex must have mShiftDelta added to them
+    private int mShiftIndex = 0;
+    private int mShiftDelta = 0;
+
+    // The edit in progress, if any (mEditLength is the length of the text before the edit, or -1 if none)
+    private int mEditStart;
+    private int mEditEnd;
+    private int mEditLength = -1;
+
+    LineIndex(final @NonNull CharSequence text) {
+        mText = text;
+    }
+
+    // --------------------------------------------------
+    // Updates
+    // --------------------------------------------------
+
+    /**
+     * Rebuilds the table by scanning the whole text.
+     */
+    void rebuild() {
+        mSize = 0;
+        mShiftIndex = 0;
+        mShiftDelta = 0;
+        mEditLength = -1;
+        final int length = mText.length();
+        for (int i = 0; i < length; i++) {
+            if (mText.charAt(i) == LINE_BREAK) {
+                append(i);
+            }
+        }
+        mShiftIndex = mSize;
+    }
+
+    /**
+     * Called before the text between start and end is replaced.
+     */
+    void beginReplace(final int start, final int end) {
+        // A nested edit can only happen once the outer edit has been applied (i.e. from TextWatcher#onTextChanged or
+        // TextWatcher#afterTextChanged), so commit the outer edit first
+        commitEdit();
+        mEditStart = start;
+        mEditEnd = end;
+        mEditLength = mText.length();
+    }
+
+    /**
+     * Called after the text has been replaced.
+     */
+    void endReplace() {
+        commitEdit();
+    }
+
+    // --------------------------------------------------
+    // Queries
+    // --------------------------------------------------
+
+    /**
+     * @param offset index within the text
+     * @return the offset of the last line break before offset, or -1 if there is none
+     */
+    int lastBreakBefore(final int offset) {
+        if (mEditLength < 0) {
+            return lastStoredBefore(offset);
+        }
+
+        final int delta = mText.length() - mEditLength;
+        final int windowEnd = mEditEnd + delta;
+
+        // Line breaks after the edit, shifted by the change in length
+        if (offset > windowEnd) {
+            int candidate = lastStoredBefore(offset - delta);
+            if (candidate >= mEditEnd) {
+                return candidate + delta;
+            }
+        }
+
+        // Line breaks within the replaced text
+        for (int i = Math.min(offset, windowEnd) - 1; i >= mEditStart; i--) {
+            if (mText.charAt(i) == LINE_BREAK) {
+                return i;
+            }
+        }
+
+        // Line breaks before the edit are unaffected
+        return lastStoredBefore(Math.min(offset, mEditStart));
+    }
+
+    /**
+     * @param offset index within the text
+     * @return the offset of the first line break at or after offset, or -1 if there is none
+     */
+    int firstBreakAtOrAfter(final int offset) {
+        if (mEditLength < 0) {
+            return firstStoredAtOrAfter(offset);
+        }
+
+        final int delta = mText.length() - mEditLength;
+        final int windowEnd = mEditEnd + delta;
+
+        // Line breaks before the edit are unaffected
+        if (offset < mEditStart) {
+            int candidate = firstStoredAtOrAfter(offset);
+            if (candidate >= 0 && candidate < mEditStart) {
+                return candidate;
+            }
+        }
+
+        // Line breaks within the replaced text
+        for (int i = Math.max(offset, mEditStart); i < windowEnd; i++) {
+            if (mText.charAt(i) == LINE_BREAK) {
+                return i;
+            }
+        }
+
+        // Line breaks after the edit, shifted by the change in length
+        int candidate = firstStoredAtOrAfter(Math.max(offset - delta, mEditEnd));
+        return candidate >= 0 ? candidate + delta : -1;
+    }
+
+    // --------------------------------------------------
+    // Private Helper Methods
+    // --------------------------------------------------
+
+    private int valueAt(final int index) {
+        return index >= mShiftIndex ? mBreaks[index] + mShiftDelta : mBreaks[index];
+    }
+
+    /**
+     * @return index of the first entry whose value is >= offset, or mSize if there is none
+     */
+    private int lowerBound(final int offset) {
+        int lo = 0;
+        int hi = mSize;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (valueAt(mid) < offset) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private int lastStoredBefore(final int offset) {
+        int index = lowerBound(offset) - 1;
+        return index >= 0 ? valueAt(index) : -1;
+    }
+
+    private int firstStoredAtOrAfter(final int offset) {
+        int index = lowerBound(offset);
+        return index < mSize ? valueAt(index) : -1;
+    }
+
+    /**
+     * Applies the edit in progress (if any) to the table.
+     */
+    private void commitEdit() {
+        if (mEditLength < 0) {
+            return;
+        }
+        final int start = mEditStart;
+        final int end = mEditEnd;
+        final int delta = mText.length() - mEditLength;
+        mEditLength = -1;
+
+        // Move the pending shift to the location of the edit. This only touches the entries between the previous
+        // edit and this one.
+        final int index = lowerBound(start);
+        if (mShiftIndex < index) {
+            for (int i = mShiftIndex; i < index; i++) {
+                mBreaks[i] += mShiftDelta;
+            }
+        } else {
+            for (int i = index; i < mShiftIndex; i++) {
+                mBreaks[i] -= mShiftDelta;
+            }
+        }
+        mShiftIndex = index;
+
+        // Remove the line breaks within the replaced text
+        int removeEnd = index;
+        while (removeEnd < mSize && mBreaks[removeEnd] + mShiftDelta < end) {
+            removeEnd++;
+        }
+
+        // Count the line breaks within the new text
+        final int windowEnd = end + delta;
+        int added = 0;
+        for (int i = start; i < windowEnd; i++) {
+            if (mText.charAt(i) == LINE_BREAK) {
+                added++;
+            }
+        }
+
+        // Make room for the new line breaks and write them in (they are stored without any pending shift)
+        final int removed = removeEnd - index;
+        if (added != removed) {
+            int newSize = mSize - removed + added;
+            if (newSize > mBreaks.length) {
+                mBreaks = Arrays.copyOf(mBreaks, Math.max(newSize, mBreaks.length * 2));
+            }
+            System.arraycopy(mBreaks, removeEnd, mBreaks, index + added, mSize - removeEnd);
+            mSize = newSize;
+        }
+        int next = index;
+        for (int i = start; i < windowEnd && next < index + added; i++) {
+            if (mText.charAt(i) == LINE_BREAK) {
+                mBreaks[next++] = i;
+            }
+        }
+
+        // Everything after the new text moves by the change in length
+        mShiftIndex = index + added;
+        mShiftDelta += delta;
+    }
+
+    private void append(final int offset) {
+        if (mSize == mBreaks.length) {
+            mBreaks = Arrays.copyOf(mBreaks, mSize * 2);
+        }
+        mBreaks[mSize++] = offset;
+    }
+}
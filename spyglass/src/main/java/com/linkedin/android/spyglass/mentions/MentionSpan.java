@@ -23,6 +23,7 @@ import android.view.View;
 import android.widget.EditText;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import com.linkedin.android.spyglass.mentions.Mentionable.MentionDisplayMode;
 import com.linkedin.android.spyglass.ui.MentionsEditText;
@@ -41,6 +42,9 @@ public class MentionSpan extends ClickableSpan implements Parcelable {
     private boolean isSelected = false;
     private MentionDisplayMode mDisplayMode = MentionDisplayMode.FULL;
 
+    // Display string for the current display mode, cached for isDisplayedIn() if the config allows it
+    @Nullable
+    private String mDisplayString;
 
     public MentionSpan(@NonNull Mentionable mention, MentionSpanConfig config, int start, int end) {
         super();
@@ -121,6 +125,9 @@ public class MentionSpan extends ClickableSpan implements Parcelable {
     }
 
     public void setDisplayMode(@NonNull MentionDisplayMode mode) {
+        if (mode != mDisplayMode) {
+            mDisplayString = null;
+        }
         mDisplayMode = mode;
     }
 
@@ -129,6 +136,48 @@ public class MentionSpan extends ClickableSpan implements Parcelable {
         return mention.getTextForDisplayMode(mDisplayMode);
     }
 
+    /**
+     * Clears the display string cached for {@link #isDisplayedIn(CharSequence, int, int)}, so that it is requested from
+     * the {@link Mentionable} again the next time it is needed. Only needed if
+     * {@link MentionSpanConfig#CACHE_DISPLAY_STRING} is set.
+     */
+    public void invalidateDisplayString() {
+        mDisplayString = null;
+    }
+
+    /**
+     * Determines if the given range of the text contains exactly the display string of the mention. The characters
+     * are compared in place, so no copy of the text is made. If {@link MentionSpanConfig#CACHE_DISPLAY_STRING} is set,
+     * the display string is only requested from the {@link Mentionable} once per display mode.
+     *
+     * @param text  the text to examine
+     * @param start the start of the range
+     * @param end   the end of the range
+     * @return true if the text within the range matches {@link #getDisplayString()}
+     */
+    public boolean isDisplayedIn(@NonNull CharSequence text, int start, int end) {
+        String displayString;
+        if (config.CACHE_DISPLAY_STRING) {
+            displayString = mDisplayString;
+            if (displayString == null) {
+                displayString = getDisplayString();
+                mDisplayString = displayString;
+            }
+        } else {
+            displayString = getDisplayString();
+        }
+        int length = displayString.length();
+        if (start < 0 || end > text.length() || end - start != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (text.charAt(start + i) != displayString.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     public int getStart() {
         return start;
     }
@@ -169,8 +218,9 @@ public class MentionSpan extends ClickableSpan implements Parcelable {
         int normalTextBackgroundColor = in.readInt();
         int selectedTextColor = in.readInt();
         int selectedTextBackgroundColor = in.readInt();
+        // Note: The display string is not cached for restored spans, so that the parcel format stays the same
         config = new MentionSpanConfig(normalTextColor, normalTextBackgroundColor,
-                selectedTextColor, selectedTextBackgroundColor);
+                selectedTextColor, selectedTextBackgroundColor, false);
 
         mDisplayMode = MentionDisplayMode.values()[in.readInt()];
         setSelected((in.readInt() == 1));
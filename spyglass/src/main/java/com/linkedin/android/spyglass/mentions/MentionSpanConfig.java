@@ -29,14 +29,20 @@ public class MentionSpanConfig {
     @ColorInt public final int SELECTED_TEXT_COLOR;
     @ColorInt public final int SELECTED_TEXT_BACKGROUND_COLOR;
 
+    // Whether MentionSpan#isDisplayedIn caches the display string of the mention for each display mode
+    // Note: Only enable this if the text of the mentions does not change, or call MentionSpan#invalidateDisplayString
+    public final boolean CACHE_DISPLAY_STRING;
+
     MentionSpanConfig(@ColorInt final int normalTextColor,
                       @ColorInt final int normalTextBackgroundColor,
                       @ColorInt final int selectedTextColor,
-                      @ColorInt final int selectedTextBackgroundColor) {
+                      @ColorInt final int selectedTextBackgroundColor,
+                      final boolean cacheDisplayString) {
         this.NORMAL_TEXT_COLOR = normalTextColor;
         this.NORMAL_TEXT_BACKGROUND_COLOR = normalTextBackgroundColor;
         this.SELECTED_TEXT_COLOR = selectedTextColor;
         this.SELECTED_TEXT_BACKGROUND_COLOR = selectedTextBackgroundColor;
+        this.CACHE_DISPLAY_STRING = cacheDisplayString;
     }
 
     public static class Builder {
@@ -47,6 +53,8 @@ public class MentionSpanConfig {
         @ColorInt private int selectedTextColor = Color.WHITE;
         @ColorInt private int selectedTextBackgroundColor = Color.parseColor("#0077b5");
 
+        private boolean cacheDisplayString = false;
+
         @NonNull
         public Builder setMentionTextColor(@ColorInt int normalTextColor) {
             if (normalTextColor != -1) {
@@ -79,10 +87,16 @@ public class MentionSpanConfig {
             return this;
         }
 
+        @NonNull
+        public Builder setCacheDisplayString(boolean cacheDisplayString) {
+            this.cacheDisplayString = cacheDisplayString;
+            return this;
+        }
+
         @NonNull
         public MentionSpanConfig build() {
             return new MentionSpanConfig(normalTextColor, normalTextBackgroundColor,
-                                         selectedTextColor, selectedTextBackgroundColor);
+                                         selectedTextColor, selectedTextBackgroundColor, cacheDisplayString);
         }
     }
 }
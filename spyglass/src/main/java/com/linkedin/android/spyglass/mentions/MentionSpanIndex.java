@@ -0,0 +1,340 @@
+/*
+* Copyright 2015 LinkedIn Corp. All rights reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*/
+
+package com.linkedin.android.spyglass.mentions;
+
+import android.text.Spanned;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Sorted index of the {@link MentionSpan}s within a {@link MentionsEditable}, used to answer nearest-boundary queries
+ * in O(log m) time instead of scanning every mention in the text.
+ * <p>
+ * Mentions never overlap, so ordering them by start also orders them by end. The index only stores the order of the
+ * spans; positions are always read back from the text. Edits shift positions monotonically and never reorder
+ * non-overlapping spans, so the index stays valid while the text is changing (including from within
+ * {@link android.text.TextWatcher} callbacks) without having to adjust any stored offsets.
+ * <p>
+ * The framework may drop a span when its text is replaced, without going through
+ * {@link MentionsEditable#removeSpan(Object)}. Such entries read back as -1; queries skip over them and remove them
+ * once the text is no longer changing. If the spans ever overlap, the index is marked as unordered and callers fall
+ * back to scanning the text.
+ */
+final class MentionSpanIndex {
+
+    private static final MentionSpan[] EMPTY_SPANS = new MentionSpan[0];
+
+    private final Spanned mText;
+    private final Comparator<MentionSpan> mComparator;
+
+    private MentionSpan[] mSpans = EMPTY_SPANS;
+    private int mSize = 0;
+
+    // False if the spans overlap or were changed in bulk, in which case the order cannot be trusted
+    private boolean mOrdered = true;
+
+    // True if spans were added or removed while unordered, so the index should be rebuilt before it is next used
+    private boolean mStale = false;
+
+    // Depth of nested calls to MentionsEditable#replace
+    private int mReplaceDepth = 0;
+
+    MentionSpanIndex(final @NonNull Spanned text) {
+        mText = text;
+        mComparator = (span1, span2) -> {
+            int compare = Integer.compare(mText.getSpanStart(span1), mText.getSpanStart(span2));
+            return compare != 0 ? compare : Integer.compare(mText.getSpanEnd(span1), mText.getSpanEnd(span2));
+        };
+    }
+
+    // --------------------------------------------------
+    // Updates
+    // --------------------------------------------------
+
+    /**
+     * Rebuilds the index from the spans currently within the text.
+     */
+    void rebuild() {
+        MentionSpan[] spans = mText.getSpans(0, mText.length(), MentionSpan.class);
+        if (spans == null) {
+            spans = EMPTY_SPANS;
+        }
+        Arrays.sort(spans, mComparator);
+        mSpans = spans;
+        mSize = spans.length;
+        mStale = false;
+        mOrdered = true;
+        for (int i = 1; i < mSize && mOrdered; i++) {
+            mOrdered = endAt(i - 1) <= startAt(i);
+        }
+    }
+
+    /**
+     * Removes every span from the index.
+     */
+    void clear() {
+        Arrays.fill(mSpans, 0, mSize, null);
+        mSize = 0;
+        mStale = false;
+        mOrdered = true;
+    }
+
+    /**
+     * Adds a span to the index. Must be called after the span has been set on the text.
+     *
+     * @param span the {@link MentionSpan} that was added
+     */
+    void add(final @NonNull MentionSpan span) {
+        if (!mOrdered) {
+            mStale = true;
+            return;
+        }
+
+        int start = mText.getSpanStart(span);
+        int end = mText.getSpanEnd(span);
+        if (start < 0) {
+            return;
+        }
+
+        // Insert after every span that starts before it (or starts at the same index and is not longer)
+        int index = firstGreater(start - 1, false);
+        while (index < mSize && (startAt(index) < 0 || (startAt(index) == start && endAt(index) <= end))) {
+            index++;
+        }
+
+        // Spans that overlap a neighbor cannot be ordered
+        int prev = skipDeadBackward(index - 1);
+        int next = skipDeadForward(index);
+        if ((prev >= 0 && endAt(prev) > start) || (next < mSize && end > startAt(next))) {
+            mOrdered = false;
+            mStale = true;
+            return;
+        }
+
+        if (mSize == mSpans.length) {
+            mSpans = Arrays.copyOf(mSpans, Math.max(8, mSize * 2));
+        }
+        System.arraycopy(mSpans, index, mSpans, index + 1, mSize - index);
+        mSpans[index] = span;
+        mSize++;
+    }
+
+    /**
+     * Removes a span from the index. Must be called before the span is removed from the text.
+     *
+     * @param span the {@link MentionSpan} that is being removed
+     */
+    void remove(final @NonNull MentionSpan span) {
+        if (!mOrdered) {
+            mStale = true;
+            return;
+        }
+
+        int start = mText.getSpanStart(span);
+        if (start < 0) {
+            return;
+        }
+        for (int i = firstGreater(start - 1, false); i < mSize; i++) {
+            if (mSpans[i] == span) {
+                removeRange(i, i + 1);
+                return;
+            }
+            if (startAt(i) > start) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Called before the text is replaced.
+     *
+     * @param bulk true if the replacement adds {@link MentionSpan}s to the text, in which case the index is rebuilt
+     *             once the text has finished changing
+     */
+    void beginReplace(final boolean bulk) {
+        mReplaceDepth++;
+        if (bulk) {
+            mOrdered = false;
+            mStale = true;
+        }
+    }
+
+    /**
+     * Called after the text has been replaced.
+     *
+     * @param start index at which the text was replaced
+     */
+    void endReplace(final int start) {
+        mReplaceDepth--;
+        if (mReplaceDepth == 0 && mOrdered) {
+            // Spans dropped by the replacement were all located at the point of the change
+            int index = Math.min(firstGreater(start - 1, false), mSize);
+            purgeDeadAround(index);
+        }
+    }
+
+    // --------------------------------------------------
+    // Queries
+    // --------------------------------------------------
+
+    /**
+     * @return true if the index can be used to answer queries, otherwise callers must scan the text
+     */
+    boolean isUsable() {
+        if (!mOrdered && mStale && mReplaceDepth == 0) {
+            rebuild();
+        }
+        return mOrdered;
+    }
+
+    /**
+     * @param offset index within the text
+     * @return the first {@link MentionSpan} starting at or after offset, or null if there is none
+     */
+    @Nullable
+    MentionSpan findFirstStartingAtOrAfter(final int offset) {
+        int index = skipDeadForward(firstGreater(offset - 1, false));
+        return index < mSize ? mSpans[index] : null;
+    }
+
+    /**
+     * @param offset index within the text
+     * @return the last {@link MentionSpan} ending at or before offset, or null if there is none
+     */
+    @Nullable
+    MentionSpan findLastEndingAtOrBefore(final int offset) {
+        int index = skipDeadBackward(firstGreater(offset, true) - 1);
+        return index >= 0 ? mSpans[index] : null;
+    }
+
+    /**
+     * @param offset index within the text
+     * @return the first {@link MentionSpan} ending at or after offset, or null if there is none
+     */
+    @Nullable
+    MentionSpan findFirstEndingAtOrAfter(final int offset) {
+        int index = skipDeadForward(firstGreater(offset - 1, true));
+        return index < mSize ? mSpans[index] : null;
+    }
+
+    // --------------------------------------------------
+    // Private Helper Methods
+    // --------------------------------------------------
+
+    private int startAt(final int index) {
+        return mText.getSpanStart(mSpans[index]);
+    }
+
+    private int endAt(final int index) {
+        return mText.getSpanEnd(mSpans[index]);
+    }
+
+    /**
+     * Binary search for the first live entry whose start (or end) is greater than the threshold. Dead entries are
+     * ignored, so the result may be preceded by dead entries.
+     *
+     * @return index of the first live entry above threshold, or mSize if there is none
+     */
+    private int firstGreater(final int threshold, final boolean byEnd) {
+        int lo = 0;
+        int hi = mSize;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            int probe = findLive(lo, mid, hi);
+            if (probe < 0) {
+                // Every entry in [lo, hi) is dead
+                return hi;
+            }
+            int value = byEnd ? endAt(probe) : startAt(probe);
+            if (value > threshold) {
+                hi = probe;
+            } else {
+                lo = probe + 1;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * @return index of the live entry in [lo, hi) closest to mid (checking later entries first), or -1 if all dead
+     */
+    private int findLive(final int lo, final int mid, final int hi) {
+        for (int i = mid; i < hi; i++) {
+            if (startAt(i) >= 0) {
+                return i;
+            }
+        }
+        for (int i = mid - 1; i >= lo; i--) {
+            if (startAt(i) >= 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int skipDeadForward(int index) {
+        if (index < mSize && startAt(index) < 0) {
+            index = purgeDeadAround(index);
+        }
+        while (index < mSize && startAt(index) < 0) {
+            index++;
+        }
+        return index;
+    }
+
+    private int skipDeadBackward(int index) {
+        if (index >= 0 && startAt(index) < 0) {
+            index = purgeDeadAround(index) - 1;
+        }
+        while (index >= 0 && startAt(index) < 0) {
+            index--;
+        }
+        return index;
+    }
+
+    /**
+     * Removes the run of dead entries containing (or adjacent to) the given index, unless the text is still changing.
+     *
+     * @return the index of the first entry after the removed run
+     */
+    private int purgeDeadAround(final int index) {
+        if (mReplaceDepth > 0) {
+            return index;
+        }
+        int from = Math.min(index, mSize);
+        while (from > 0 && startAt(from - 1) < 0) {
+            from--;
+        }
+        int to = from;
+        while (to < mSize && startAt(to) < 0) {
+            to++;
+        }
+        if (to > from) {
+            removeRange(from, to);
+        }
+        return from;
+    }
+
+    private void removeRange(final int from, final int to) {
+        System.arraycopy(mSpans, to, mSpans, from, mSize - to);
+        int newSize = mSize - (to - from);
+        Arrays.fill(mSpans, newSize, mSize, null);
+        mSize = newSize;
+    }
+}
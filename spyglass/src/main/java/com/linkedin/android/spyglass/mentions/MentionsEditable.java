@@ -38,16 +38,35 @@ import java.util.List;
  */
 public class MentionsEditable extends SpannableStringBuilder implements Parcelable {
 
+    // Sorted index of the MentionSpans in this text. Note: The superclass constructor copies spans without calling
+    // setSpan(), so the index is rebuilt at the end of each constructor.
+    private final MentionSpanIndex mMentionSpanIndex = new MentionSpanIndex(this);
+
+    // Table of line breaks in this text, updated incrementally as the text changes
+    private final LineIndex mLineIndex = new LineIndex(this);
+
+    // Incremented whenever the text or the mentions within it change
+    private int mChangeCount = 0;
+
+    // Depth of nested calls to replace
+    private int mReplaceDepth = 0;
+
     public MentionsEditable(@NonNull CharSequence text) {
         super(text);
+        mMentionSpanIndex.rebuild();
+        mLineIndex.rebuild();
     }
 
     public MentionsEditable(@NonNull CharSequence text, int start, int end) {
         super(text, start, end);
+        mMentionSpanIndex.rebuild();
+        mLineIndex.rebuild();
     }
 
     public MentionsEditable(@NonNull Parcel in) {
         super(in.readString());
+        mMentionSpanIndex.rebuild();
+        mLineIndex.rebuild();
         int length = in.readInt();
         if (length > 0) {
             for (int index = 0; index < length; index++) {
@@ -87,7 +106,16 @@ public class MentionsEditable extends SpannableStringBuilder implements Parcelab
 
         // For added safety, check that the start and end indices are valid
         if (start >= 0 && end >= start && end <= length()) {
+            // Keep the mention index up to date (note: the index is null while the superclass is being constructed)
+            boolean isIndexed = what instanceof MentionSpan && mMentionSpanIndex != null;
+            if (isIndexed && getSpanStart(what) >= 0) {
+                mMentionSpanIndex.remove((MentionSpan) what);
+            }
             super.setSpan(what, start, end, flags);
+            if (isIndexed) {
+                mMentionSpanIndex.add((MentionSpan) what);
+                mChangeCount++;
+            }
         } else {
             Log.w(getClass().getName(),
                   "Attempted to set span at invalid indices, start=" + start + ", end=" + end);
@@ -112,11 +140,51 @@ public class MentionsEditable extends SpannableStringBuilder implements Parcelab
             // If the insert string matches the previous string and the previous string contains a mention, then
             // we will just delete the previous character instead of appending the word.
             if (insertString.equals(prevString) && prevSpans.length > 0) {
-                return super.replace(start - 1, start, "", 0, 0);
+                return replaceAndUpdateIndexes(start - 1, start, "", 0, 0);
             }
         }
 
-        return super.replace(start, end, tb, tbstart, tbend);
+        return replaceAndUpdateIndexes(start, end, tb, tbstart, tbend);
+    }
+
+    @Override
+    public void removeSpan(Object what) {
+        if (what instanceof MentionSpan && mMentionSpanIndex != null) {
+            mMentionSpanIndex.remove((MentionSpan) what);
+            mChangeCount++;
+        }
+        super.removeSpan(what);
+    }
+
+    @Override
+    public void clearSpans() {
+        super.clearSpans();
+        if (mMentionSpanIndex != null) {
+            mMentionSpanIndex.clear();
+        }
+        mChangeCount++;
+    }
+
+    /**
+     * Replaces the text while keeping the mention index and line table up to date. Note that the superclass copies any
+     * spans within the replacement text without calling {@link #setSpan(Object, int, int, int)}, so if the replacement
+     * contains mentions, the mention index is rebuilt once the text has finished changing.
+     */
+    @NonNull
+    private SpannableStringBuilder replaceAndUpdateIndexes(int start, int end, CharSequence tb, int tbstart, int tbend) {
+        boolean addsMentions = tb instanceof Spanned && tbstart < tbend
+                && ((Spanned) tb).getSpans(tbstart, tbend, MentionSpan.class).length > 0;
+        mChangeCount++;
+        mReplaceDepth++;
+        mMentionSpanIndex.beginReplace(addsMentions);
+        mLineIndex.beginReplace(start, end);
+        try {
+            return super.replace(start, end, tb, tbstart, tbend);
+        } finally {
+            mLineIndex.endReplace();
+            mMentionSpanIndex.endReplace(start);
+            mReplaceDepth--;
+        }
     }
 
     // --------------------------------------------------
@@ -165,6 +233,33 @@ public class MentionsEditable extends SpannableStringBuilder implements Parcelab
         return (spans != null && spans.length > 0) ? spans[0] : null;
     }
 
+    /**
+     * Get the {@link MentionSpan} that the given index is strictly within (i.e. after the start of the mention and before
+     * its end), or null if there is none. Unlike {@link #getMentionSpanAtOffset(int)}, mentions that only start or end
+     * at the index are not returned, and the mention index is used instead of searching all of the spans.
+     *
+     * @param index integer offset in text
+     *
+     * @return a {@link MentionSpan} containing index, or null
+     */
+    @Nullable
+    public MentionSpan getMentionSpanContaining(int index) {
+        if (mMentionSpanIndex.isUsable()) {
+            // Note: Mentions do not overlap, so only the first one ending after the index may contain it
+            MentionSpan span = mMentionSpanIndex.findFirstEndingAtOrAfter(index + 1);
+            return (span != null && getSpanStart(span) < index) ? span : null;
+        }
+        MentionSpan[] spans = getSpans(index, index, MentionSpan.class);
+        if (spans != null) {
+            for (MentionSpan span : spans) {
+                if (getSpanStart(span) < index && index < getSpanEnd(span)) {
+                    return span;
+                }
+            }
+        }
+        return null;
+    }
+
     /**
      * Get the {@link MentionSpan} starting at the given index in the text, or null if there is no {@link MentionSpan}
      * starting at that index.
@@ -175,6 +270,10 @@ public class MentionsEditable extends SpannableStringBuilder implements Parcelab
      */
     @Nullable
     public MentionSpan getMentionSpanStartingAt(int index) {
+        if (mMentionSpanIndex.isUsable()) {
+            MentionSpan span = mMentionSpanIndex.findFirstStartingAtOrAfter(index);
+            return (span != null && getSpanStart(span) == index) ? span : null;
+        }
         MentionSpan[] spans = getSpans(0, length(), MentionSpan.class);
         if (spans != null) {
             for (MentionSpan span : spans) {
@@ -196,6 +295,10 @@ public class MentionsEditable extends SpannableStringBuilder implements Parcelab
      */
     @Nullable
     public MentionSpan getMentionSpanEndingAt(int index) {
+        if (mMentionSpanIndex.isUsable()) {
+            MentionSpan span = mMentionSpanIndex.findFirstEndingAtOrAfter(index);
+            return (span != null && getSpanEnd(span) == index) ? span : null;
+        }
         MentionSpan[] spans = getSpans(0, length(), MentionSpan.class);
         if (spans != null) {
             for (MentionSpan span : spans) {
@@ -207,6 +310,99 @@ public class MentionsEditable extends SpannableStringBuilder implements Parcelab
         return null;
     }
 
+    /**
+     * Get the end of the {@link MentionSpan} that ends closest before (or at) the given index in the text.
+     *
+     * @param index integer offset in text
+     *
+     * @return the end of the closest {@link MentionSpan} ending at or before index, or -1 if there is none
+     */
+    public int getClosestMentionEndBefore(int index) {
+        if (mMentionSpanIndex.isUsable()) {
+            MentionSpan span = mMentionSpanIndex.findLastEndingAtOrBefore(index);
+            return (span != null) ? getSpanEnd(span) : -1;
+        }
+        int closest = -1;
+        MentionSpan[] spans = getSpans(0, length(), MentionSpan.class);
+        if (spans != null) {
+            for (MentionSpan span : spans) {
+                int end = getSpanEnd(span);
+                if (end > closest && end <= index) {
+                    closest = end;
+                }
+            }
+        }
+        return closest;
+    }
+
+    /**
+     * Get the start of the {@link MentionSpan} that starts closest after (or at) the given index in the text.
+     *
+     * @param index integer offset in text
+     *
+     * @return the start of the closest {@link MentionSpan} starting at or after index, or -1 if there is none
+     */
+    public int getClosestMentionStartAfter(int index) {
+        if (mMentionSpanIndex.isUsable()) {
+            MentionSpan span = mMentionSpanIndex.findFirstStartingAtOrAfter(index);
+            return (span != null) ? getSpanStart(span) : -1;
+        }
+        int closest = -1;
+        MentionSpan[] spans = getSpans(0, length(), MentionSpan.class);
+        if (spans != null) {
+            for (MentionSpan span : spans) {
+                int start = getSpanStart(span);
+                if (start >= index && (closest == -1 || start < closest)) {
+                    closest = start;
+                }
+            }
+        }
+        return closest;
+    }
+
+    /**
+     * Get the start of the line containing the given index in the text, where lines are separated by '\n'.
+     *
+     * @param index integer offset in text
+     *
+     * @return the index just after the closest line break before index, or 0 if there is none
+     */
+    public int getLineStart(int index) {
+        return mLineIndex.lastBreakBefore(index) + 1;
+    }
+
+    /**
+     * Get the end of the line containing the given index in the text, where lines are separated by '\n'.
+     *
+     * @param index integer offset in text
+     *
+     * @return the index of the closest line break at or after index, or the length of the text if there is none
+     */
+    public int getLineEnd(int index) {
+        int lineBreak = mLineIndex.firstBreakAtOrAfter(index);
+        return (lineBreak >= 0) ? lineBreak : length();
+    }
+
+    /**
+     * Get a counter that is incremented whenever the text or the {@link MentionSpan}s within it change. State derived
+     * from the text (i.e. the current token) is still current as long as this value has not changed.
+     *
+     * @return the number of changes made to this text
+     */
+    public int getChangeCount() {
+        return mChangeCount;
+    }
+
+    /**
+     * Determines if the text is currently being replaced, in which case it may be called from a
+     * {@link android.text.TextWatcher} either before or after the change has been applied.
+     *
+     * @return true if called from within {@link #replace(int, int, CharSequence, int, int)}
+     */
+    public boolean isReplacing() {
+        return mReplaceDepth > 0;
+    }
+
     @Override
     public int describeContents() {
         return 0;
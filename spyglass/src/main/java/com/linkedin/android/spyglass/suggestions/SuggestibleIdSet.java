@@ -0,0 +1,157 @@
+/*
+* Copyright 2015 LinkedIn Corp. All rights reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*/
+
+package com.linkedin.android.spyglass.suggestions;
+
+import com.linkedin.android.spyglass.suggestions.interfaces.Suggestible;
+
+import java.util.Arrays;
+
+/**
+ * Set of suggestion IDs (i.e. {@link Suggestible#getSuggestibleId()}) used by the list builders to find duplicate
+ * suggestions, and by the adapters to give each row a unique stable ID. Each ID is stored with a tag (i.e. the bucket
+ * it was first seen in).
+ * <p>
+ * The IDs are kept in primitive arrays with open addressing, so adding one does not allocate anything once the set has
+ * grown to the size it needs. The set is meant to be reused: {@link #clear()} does not touch the arrays, but marks all
+ * of the slots as stale by moving on to a new stamp.
+ */
+public final class SuggestibleIdSet {
+
+    /**
+     * Returned by {@link #get(long)} and {@link #putIfAbsent(long, int)} when the ID is not in the set.
+     */
+    public static final int NOT_FOUND = -1;
+
+    private static final int MIN_CAPACITY = 64;
+
+    private long[] mIds = new long[MIN_CAPACITY];
+    private int[] mTags = new int[MIN_CAPACITY];
+    // A slot is only in use if its stamp is the current one
+    private int[] mStamps = new int[MIN_CAPACITY];
+    private int mStamp = 1;
+    private int mSize = 0;
+
+    /**
+     * Removes all of the IDs from the set.
+     */
+    public void clear() {
+        mSize = 0;
+        if (++mStamp == 0) {
+            // The stamps have wrapped around, so old slots could look current
+            Arrays.fill(mStamps, 0);
+            mStamp = 1;
+        }
+    }
+
+    /**
+     * Makes sure that the set can hold the given number of IDs without growing.
+     */
+    public void ensureCapacity(int size) {
+        if (size * 2 > mIds.length) {
+            resize(size);
+        }
+    }
+
+    /**
+     * @return the tag of the ID, or {@link #NOT_FOUND} if the ID is not in the set
+     */
+    public int get(long id) {
+        int mask = mIds.length - 1;
+        for (int i = hash(id) & mask; mStamps[i] == mStamp; i = (i + 1) & mask) {
+            if (mIds[i] == id) {
+                return mTags[i];
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * Adds the ID with the given tag, unless it is already in the set.
+     *
+     * @return the existing tag of the ID, or {@link #NOT_FOUND} if it was added
+     */
+    public int putIfAbsent(long id, int tag) {
+        int mask = mIds.length - 1;
+        int i = hash(id) & mask;
+        for (; mStamps[i] == mStamp; i = (i + 1) & mask) {
+            if (mIds[i] == id) {
+                return mTags[i];
+            }
+        }
+        insertAt(i, id, tag);
+        return NOT_FOUND;
+    }
+
+    /**
+     * Sets the tag of the ID, adding it if it is not already in the set.
+     */
+    public void put(long id, int tag) {
+        int mask = mIds.length - 1;
+        int i = hash(id) & mask;
+        for (; mStamps[i] == mStamp; i = (i + 1) & mask) {
+            if (mIds[i] == id) {
+                mTags[i] = tag;
+                return;
+            }
+        }
+        insertAt(i, id, tag);
+    }
+
+    // --------------------------------------------------
+    // Private Helper Methods
+    // --------------------------------------------------
+
+    private void insertAt(int slot, long id, int tag) {
+        mIds[slot] = id;
+        mTags[slot] = tag;
+        mStamps[slot] = mStamp;
+        // Keep the load factor at or below 1/2
+        if (++mSize * 2 > mIds.length) {
+            resize(mSize);
+        }
+    }
+
+    private void resize(int size) {
+        long[] oldIds = mIds;
+        int[] oldTags = mTags;
+        int[] oldStamps = mStamps;
+        int oldStamp = mStamp;
+
+        int capacity = Integer.highestOneBit(Math.max(MIN_CAPACITY, size * 2 - 1)) << 1;
+        mIds = new long[capacity];
+        mTags = new int[capacity];
+        mStamps = new int[capacity];
+        mStamp = 1;
+
+        int mask = capacity - 1;
+        for (int j = 0; j < oldIds.length; j++) {
+            if (oldStamps[j] != oldStamp) {
+                continue;
+            }
+            int i = hash(oldIds[j]) & mask;
+            while (mStamps[i] == mStamp) {
+                i = (i + 1) & mask;
+            }
+            mIds[i] = oldIds[j];
+            mTags[i] = oldTags[j];
+            mStamps[i] = mStamp;
+        }
+    }
+
+    private static int hash(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,44 @@
+/*
+* Copyright 2015 LinkedIn Corp. All rights reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*/
+
+package com.linkedin.android.spyglass.suggestions;
+
+import androidx.annotation.NonNull;
+
+import com.linkedin.android.spyglass.suggestions.interfaces.Suggestible;
+import com.linkedin.android.spyglass.suggestions.interfaces.SuggestionsListBuilder;
+
+/**
+ * Identifies suggestions across updates to the list of suggestions, for the stable IDs of the adapters. Note that the
+ * {@link SuggestionsListBuilder} implementations find duplicates by {@link Suggestible#getSuggestibleId()} alone, so
+ * that the same result from sources with different classes is still shown once.
+ */
+public final class SuggestibleIds {
+
+    private SuggestibleIds() {
+    }
+
+    /**
+     * Returns the ID of a suggestion. It is made from the suggestion's class and
+     * {@link Suggestible#getSuggestibleId()}, so suggestions of different kinds with the same ID (i.e. a person and a
+     * hashtag) do not share one.
+     *
+     * @param suggestion the {@link Suggestible} to get the ID for
+     * @return the ID of the suggestion
+     */
+    public static long getId(final @NonNull Suggestible suggestion) {
+        long classHash = suggestion.getClass().getName().hashCode();
+        return (classHash << 32) | (suggestion.getSuggestibleId() & 0xFFFFFFFFL);
+    }
+}
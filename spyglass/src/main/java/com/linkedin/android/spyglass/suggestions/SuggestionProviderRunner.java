@@ -0,0 +1,223 @@
+/*
+ * Copyright 2015 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package com.linkedin.android.spyglass.suggestions;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.linkedin.android.spyglass.suggestions.interfaces.Suggestible;
+import com.linkedin.android.spyglass.suggestions.interfaces.SuggestionProvider;
+import com.linkedin.android.spyglass.suggestions.interfaces.SuggestionsResultListener;
+import com.linkedin.android.spyglass.tokenization.QueryToken;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs a set of {@link SuggestionProvider}s for each query. The providers are called in parallel on an
+ * {@link Executor}, and the result for each bucket is passed to the {@link SuggestionsResultListener} as soon as it
+ * arrives, so a slow provider (i.e. a remote search) never holds back the results of a fast one (i.e. local contacts).
+ * <p>
+ * Each provider may be given a deadline. If it has not returned its suggestions by then, an empty result is passed on
+ * for its bucket (so that the bucket is no longer waited for), and anything it returns later is ignored. Likewise, an
+ * empty result is passed on for each bucket of a query that is cancelled before its suggestions are passed on.
+ */
+public class SuggestionProviderRunner {
+
+    /**
+     * Deadline for a provider that may take as long as it needs.
+     */
+    public static final long NO_DEADLINE = 0;
+
+    private static final String TAG = SuggestionProviderRunner.class.getSimpleName();
+
+    private static ExecutorService sDefaultExecutor;
+
+    private final SuggestionsResultListener mListener;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private final List<ProviderEntry> mProviders = new ArrayList<>();
+    private Executor mExecutor;
+
+    public SuggestionProviderRunner(@NonNull SuggestionsResultListener listener) {
+        mListener = listener;
+    }
+
+    // --------------------------------------------------
+    // Public Methods
+    // --------------------------------------------------
+
+    /**
+     * Adds a {@link SuggestionProvider}, replacing any provider already added for its bucket.
+     *
+     * @param provider       the {@link SuggestionProvider} to add
+     * @param deadlineMillis the time the provider has to return its suggestions for each query, or
+     *                       {@link #NO_DEADLINE}
+     */
+    public void addProvider(@NonNull SuggestionProvider provider, long deadlineMillis) {
+        removeProvider(provider.getBucket());
+        mProviders.add(new ProviderEntry(provider, deadlineMillis));
+    }
+
+    /**
+     * Removes the {@link SuggestionProvider} for the given bucket, if there is one. Queries already running are not
+     * affected.
+     *
+     * @param bucket the bucket of the provider to remove
+     * @return true if a provider was removed
+     */
+    public boolean removeProvider(@NonNull String bucket) {
+        for (int i = 0; i < mProviders.size(); i++) {
+            if (mProviders.get(i).mProvider.getBucket().equals(bucket)) {
+                mProviders.remove(i);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return true if any {@link SuggestionProvider}s have been added
+     */
+    public boolean hasProviders() {
+        return !mProviders.isEmpty();
+    }
+
+    /**
+     * Sets the {@link Executor} that the providers are called on. By default, a shared thread pool is used, which
+     * creates a thread for each provider that is running at the same time.
+     *
+     * @param executor the {@link Executor} to use, or null to use the default
+     */
+    public void setExecutor(@Nullable Executor executor) {
+        mExecutor = executor;
+    }
+
+    /**
+     * Starts all of the providers that can handle the given {@link QueryToken}. This must be called on the UI thread.
+     *
+     * @param queryToken the {@link QueryToken} to find suggestions for
+     * @return the buckets that results will be returned for
+     */
+    @NonNull
+    public List<String> query(@NonNull QueryToken queryToken) {
+        if (mProviders.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Executor executor = (mExecutor != null) ? mExecutor : getDefaultExecutor();
+        List<String> buckets = new ArrayList<>(mProviders.size());
+        for (ProviderEntry entry : mProviders) {
+            if (!entry.mProvider.canProvideSuggestions(queryToken)) {
+                continue;
+            }
+            ProviderRequest request = new ProviderRequest(queryToken, entry.mProvider);
+            buckets.add(request.mBucket);
+            if (entry.mDeadlineMillis > NO_DEADLINE) {
+                mHandler.postDelayed(request.mDeadline, entry.mDeadlineMillis);
+            }
+            executor.execute(request);
+        }
+        return buckets;
+    }
+
+    // --------------------------------------------------
+    // Private Helper Methods & Classes
+    // --------------------------------------------------
+
+    @NonNull
+    private static synchronized Executor getDefaultExecutor() {
+        if (sDefaultExecutor == null) {
+            final AtomicInteger threadCount = new AtomicInteger();
+            sDefaultExecutor = Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "SuggestionProvider #" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return sDefaultExecutor;
+    }
+
+    private static class ProviderEntry {
+
+        private final SuggestionProvider mProvider;
+        private final long mDeadlineMillis;
+
+        private ProviderEntry(@NonNull SuggestionProvider provider, long deadlineMillis) {
+            mProvider = provider;
+            mDeadlineMillis = deadlineMillis;
+        }
+    }
+
+    /**
+     * A call to a single provider for a single query. Whichever comes first of the provider's suggestions and the
+     * deadline completes the request; anything after that is ignored.
+     */
+    private class ProviderRequest implements Runnable, SuggestionProvider.Callback {
+
+        private final QueryToken mQueryToken;
+        private final SuggestionProvider mProvider;
+        private final String mBucket;
+        private final AtomicBoolean mDone = new AtomicBoolean();
+        private final Runnable mDeadline = () -> complete(Collections.emptyList());
+
+        private ProviderRequest(@NonNull QueryToken queryToken, @NonNull SuggestionProvider provider) {
+            mQueryToken = queryToken;
+            mProvider = provider;
+            mBucket = provider.getBucket();
+        }
+
+        @Override
+        public void run() {
+            // Do not start work for a query that has already been replaced
+            if (mQueryToken.isCancelled()) {
+                complete(Collections.emptyList());
+                return;
+            }
+            try {
+                mProvider.provideSuggestions(mQueryToken, this);
+            } catch (RuntimeException e) {
+                Log.w(TAG, "Provider for bucket \"" + mBucket + "\" failed", e);
+                complete(Collections.emptyList());
+            }
+        }
+
+        @Override
+        public void onSuggestionsReady(@NonNull List<? extends Suggestible> suggestions) {
+            complete(suggestions);
+        }
+
+        private void complete(@NonNull List<? extends Suggestible> suggestions) {
+            if (!mDone.compareAndSet(false, true)) {
+                return;
+            }
+            mHandler.removeCallbacks(mDeadline);
+            // The suggestions for a cancelled query would be dropped anyway, but the bucket is still reported (empty),
+            // so that the query no longer counts as in flight (see QueryDispatcher#onResultReceived)
+            List<? extends Suggestible> result = mQueryToken.isCancelled()
+                    ? Collections.<Suggestible>emptyList() : suggestions;
+            mListener.onReceiveSuggestionsResult(new SuggestionsResult(mQueryToken, result), mBucket);
+        }
+    }
+}
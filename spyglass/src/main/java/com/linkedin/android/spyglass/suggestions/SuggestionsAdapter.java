@@ -12,6 +12,7 @@
 * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
 */
 
+
 package com.linkedin.android.spyglass.suggestions;
 
 import android.content.Context;
@@ -21,38 +22,39 @@ import android.view.View;
 import android.view.ViewGroup;
 import android.widget.BaseAdapter;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
+import com.linkedin.android.spyglass.suggestions.SuggestionsCollector.StableIdList;
 import com.linkedin.android.spyglass.suggestions.interfaces.Suggestible;
 import com.linkedin.android.spyglass.suggestions.interfaces.SuggestionsListBuilder;
 import com.linkedin.android.spyglass.suggestions.interfaces.SuggestionsVisibilityManager;
 import com.linkedin.android.spyglass.tokenization.QueryToken;
 import com.linkedin.android.spyglass.tokenization.interfaces.TokenSource;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.Executor;
 
 /**
  * Adapter class for displaying suggestions.
+ * <p>
+ * The adapter has stable IDs based on {@link Suggestible#getSuggestibleId()} (which stay unique to each row when a
+ * suggestion appears more than once), and uses the view types declared by the {@link SuggestionsListBuilder}, so rows
+ * are only reused for suggestions that have the same kind of view.
+ * <p>
+ * The list of suggestions is built from the latest results by the {@link SuggestionsListBuilder} on a background
+ * thread (see {@link #setBuildExecutor(Executor)}), so merging, filtering and sorting large buckets does not hold up
+ * the UI thread. The finished list is then swapped in on the UI thread in a single step. A build is abandoned if newer
+ * results arrive or its query is replaced before it is published.
  */
 public class SuggestionsAdapter extends BaseAdapter {
 
-    private final Object mLock = new Object();
     private final Context mContext;
     private final Resources mResources;
     private final LayoutInflater mInflater;
+    private final SuggestionsCollector<StableIdList> mCollector;
 
-    private SuggestionsVisibilityManager mSuggestionsVisibilityManager;
-    private SuggestionsListBuilder mSuggestionsListBuilder;
-    private final List<Suggestible> mSuggestions;
-
-    // Map from a given bucket (defined by a unique string) to the latest query result for that bucket
-    // Example buckets: "Person-Database", "Person-Network", "Companies-Database", "Companies-Network"
-    private final Map<String, SuggestionsResult> mResultMap = new HashMap<>();
-    private final Map<QueryToken, Set<String>> mWaitingForResults = new HashMap<>();
+    // Immutable list of the suggestions being displayed, only replaced (never modified) on the UI thread
+    private StableIdList mSuggestions = StableIdList.EMPTY;
 
     public SuggestionsAdapter(final @NonNull Context context,
                               final @NonNull SuggestionsVisibilityManager suggestionsVisibilityManager,
@@ -61,9 +63,8 @@ public class SuggestionsAdapter extends BaseAdapter {
         mContext = context;
         mResources = context.getResources();
         mInflater = (LayoutInflater) context.getSystemService(Context.LAYOUT_INFLATER_SERVICE);
-        mSuggestionsVisibilityManager = suggestionsVisibilityManager;
-        mSuggestionsListBuilder = suggestionsListBuilder;
-        mSuggestions = new ArrayList<>();
+        mCollector = new SuggestionsCollector<>(suggestionsVisibilityManager, suggestionsListBuilder,
+                new ListDisplay());
     }
 
     // --------------------------------------------------
@@ -77,17 +78,9 @@ public class SuggestionsAdapter extends BaseAdapter {
      * @param queryToken the {@link QueryToken} that has been received
      * @param buckets    a list of string dictating which buckets the future query results will go into
      */
-
     public void notifyQueryTokenReceived(@NonNull QueryToken queryToken,
                                          @NonNull List<String> buckets) {
-        synchronized (mLock) {
-            Set<String> currentBuckets = mWaitingForResults.get(queryToken);
-            if (currentBuckets == null) {
-                currentBuckets = new HashSet<>();
-            }
-            currentBuckets.addAll(buckets);
-            mWaitingForResults.put(queryToken, currentBuckets);
-        }
+        mCollector.notifyQueryTokenReceived(queryToken, buckets);
     }
 
     /**
@@ -95,7 +88,8 @@ public class SuggestionsAdapter extends BaseAdapter {
      * bucket, and passes this information to the SuggestionsManager to construct the list of suggestions in the
      * appropriate order.
      * <p>
-     * Note: This should be called exactly once for every bucket returned from the query client.
+     * Note: This should be called exactly once for every bucket returned from the query client. Results for a query
+     * that was cancelled, or that is older than the latest query received, are dropped.
      *
      * @param result a {@link SuggestionsResult} containing the suggestions to add
      * @param bucket a string representing the group to place the {@link SuggestionsResult} into
@@ -104,75 +98,39 @@ public class SuggestionsAdapter extends BaseAdapter {
     public void addSuggestions(final @NonNull SuggestionsResult result,
                                final @NonNull String bucket,
                                final @NonNull TokenSource source) {
-        // Add result to proper bucket and remove from waiting
-        QueryToken query = result.getQueryToken();
-        synchronized (mLock) {
-            mResultMap.put(bucket, result);
-            Set<String> waitingForBuckets = mWaitingForResults.get(query);
-            if (waitingForBuckets != null) {
-                waitingForBuckets.remove(bucket);
-                if (waitingForBuckets.size() == 0) {
-                    mWaitingForResults.remove(query);
-                }
-            }
-        }
-
-        // Rebuild the list of suggestions in the appropriate order
-        String currentTokenString = source.getCurrentTokenString();
-        synchronized (mLock) {
-            mSuggestions.clear();
-            List<Suggestible> suggestions = mSuggestionsListBuilder.buildSuggestions(mResultMap, currentTokenString);
-
-            // If we have suggestions, add them to the adapter and display them
-            if (suggestions.size() > 0) {
-                mSuggestions.addAll(suggestions);
-                mSuggestionsVisibilityManager.displaySuggestions(true);
-            } else {
-                hideSuggestionsIfNecessary(result.getQueryToken(), source);
-            }
-        }
-
-        notifyDataSetChanged();
+        mCollector.addSuggestions(result, bucket, source);
     }
 
     /**
      * Clear all data from adapter.
      */
     public void clear() {
-        mResultMap.clear();
+        mCollector.clear();
         notifyDataSetChanged();
     }
 
     // --------------------------------------------------
-    // Private Helper Methods
+    // Private Helper Classes
     // --------------------------------------------------
 
     /**
-     * Hides the suggestions if there are no more incoming queries.
-     *
-     * @param currentQuery the most recent {@link QueryToken}
-     * @param source       the associated {@link TokenSource} to use for reference
+     * Swaps newly built lists of suggestions into the adapter.
      */
-    private void hideSuggestionsIfNecessary(final @NonNull QueryToken currentQuery,
-                                            final @NonNull TokenSource source) {
-        String queryTS = currentQuery.getTokenString();
-        String currentTS = source.getCurrentTokenString();
-        if (!isWaitingForResults(currentQuery) && queryTS != null && queryTS.equals(currentTS)) {
-            mSuggestionsVisibilityManager.displaySuggestions(false);
+    private class ListDisplay implements SuggestionsCollector.Display<StableIdList> {
+
+        // IDs in use while preparing a list, reused between builds
+        private final SuggestibleIdSet mUsedIds = new SuggestibleIdSet();
+
+        @NonNull
+        @Override
+        public StableIdList prepareSuggestions(@NonNull List<Suggestible> suggestions) {
+            return new StableIdList(suggestions, mUsedIds);
         }
-    }
 
-    /**
-     * Determines if the adapter is still waiting for results for a given {@link QueryToken}
-     *
-     * @param currentQuery the {@link QueryToken} to check if waiting for results on
-     *
-     * @return true if still waiting for the results of the current query
-     */
-    private boolean isWaitingForResults(QueryToken currentQuery) {
-        synchronized (mLock) {
-            Set<String> buckets = mWaitingForResults.get(currentQuery);
-            return buckets != null && buckets.size() > 0;
+        @Override
+        public void displaySuggestions(@NonNull StableIdList suggestions) {
+            mSuggestions = suggestions;
+            notifyDataSetChanged();
         }
     }
 
@@ -196,15 +154,33 @@ public class SuggestionsAdapter extends BaseAdapter {
 
     @Override
     public long getItemId(int position) {
-        return position;
+        StableIdList suggestions = mSuggestions;
+        return (position >= 0 && position < suggestions.size()) ? suggestions.getId(position) : position;
+    }
+
+    @Override
+    public boolean hasStableIds() {
+        return true;
+    }
+
+    @Override
+    public int getViewTypeCount() {
+        return mCollector.getSuggestionsListBuilder().getViewTypeCount();
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        Suggestible suggestion = getItem(position);
+        return (suggestion != null) ? mCollector.getSuggestionsListBuilder().getItemViewType(suggestion) : 0;
     }
 
     @Override
     public View getView(int position, View convertView, ViewGroup parent) {
         final Suggestible suggestion = getItem(position);
         View v = null;
-        if (mSuggestionsVisibilityManager != null) {
-            v = mSuggestionsListBuilder.getView(suggestion, convertView, parent, mContext, mInflater, mResources);
+        if (mCollector.getSuggestionsManager() != null) {
+            SuggestionsListBuilder listBuilder = mCollector.getSuggestionsListBuilder();
+            v = listBuilder.getView(suggestion, convertView, parent, mContext, mInflater, mResources);
         }
         return v;
     }
@@ -219,16 +195,28 @@ public class SuggestionsAdapter extends BaseAdapter {
      * @param suggestionsVisibilityManager the {@link com.linkedin.android.spyglass.suggestions.interfaces.SuggestionsVisibilityManager} to use
      */
     public void setSuggestionsManager(final @NonNull SuggestionsVisibilityManager suggestionsVisibilityManager) {
-        mSuggestionsVisibilityManager = suggestionsVisibilityManager;
+        mCollector.setSuggestionsManager(suggestionsVisibilityManager);
+    }
+
+    /**
+     * Sets the {@link Executor} that the list of suggestions is built on. By default, the lists are built one at a time
+     * on a shared background thread. To build them on the UI thread (as in older versions), use an executor that runs
+     * each task immediately, i.e. {@code Runnable::run}.
+     *
+     * @param executor the {@link Executor} to use, or null to use the default
+     */
+    public void setBuildExecutor(final @Nullable Executor executor) {
+        mCollector.setBuildExecutor(executor);
     }
 
     /**
-     * Sets the {@link SuggestionsListBuilder} to use.
+     * Sets the {@link SuggestionsListBuilder} to use. If it declares a different number of view types than the current
+     * one, the adapter must be set on the {@link android.widget.ListView} again.
      *
      * @param suggestionsListBuilder the {@link SuggestionsListBuilder} to use
      */
     public void setSuggestionsListBuilder(final @NonNull SuggestionsListBuilder suggestionsListBuilder) {
-        mSuggestionsListBuilder = suggestionsListBuilder;
+        mCollector.setSuggestionsListBuilder(suggestionsListBuilder);
     }
 
 }
@@ -0,0 +1,419 @@
+/*
+ * Copyright 2015 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package com.linkedin.android.spyglass.suggestions;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.linkedin.android.spyglass.suggestions.interfaces.Suggestible;
+import com.linkedin.android.spyglass.suggestions.interfaces.SuggestionsListBuilder;
+import com.linkedin.android.spyglass.suggestions.interfaces.SuggestionsVisibilityManager;
+import com.linkedin.android.spyglass.tokenization.QueryToken;
+import com.linkedin.android.spyglass.tokenization.interfaces.TokenSource;
+
+import java.util.AbstractList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Collects the results of queries for the suggestion adapters, and builds the list of suggestions to display from them.
+ * <p>
+ * The list is built from the latest results by the {@link SuggestionsListBuilder} on a background thread (see
+ * {@link #setBuildExecutor(Executor)}), so merging, filtering and sorting large buckets does not hold up the UI thread.
+ * The finished list is then passed to the {@link Display} on the UI thread in a single step. A build is abandoned if
+ * newer results arrive or its query is replaced before it is published.
+ *
+ * @param <T> the type of the list once it has been prepared for display
+ */
+final class SuggestionsCollector<T> {
+
+    /**
+     * The adapter that displays the suggestions.
+     *
+     * @param <T> the type of the list once it has been prepared for display
+     */
+    interface Display<T> {
+
+        /**
+         * Prepares a newly built list of suggestions for display. This is called on the same thread as the
+         * {@link SuggestionsListBuilder}, so any other expensive work (i.e. finding the changes from the list being
+         * displayed) should be done here.
+         *
+         * @param suggestions the suggestions in the order they should be displayed
+         * @return the prepared list
+         */
+        @NonNull
+        T prepareSuggestions(@NonNull List<Suggestible> suggestions);
+
+        /**
+         * Displays a prepared list of suggestions. This is called on the UI thread.
+         *
+         * @param suggestions the list returned from {@link #prepareSuggestions(List)}
+         */
+        void displaySuggestions(@NonNull T suggestions);
+    }
+
+    // Max number of queries to wait for results for (the oldest are forgotten first)
+    private static final int MAX_WAITING_QUERIES = 16;
+
+    private static ExecutorService sDefaultBuildExecutor;
+
+    private final Object mLock = new Object();
+    private final Display<T> mDisplay;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    private SuggestionsVisibilityManager mSuggestionsVisibilityManager;
+    private SuggestionsListBuilder mSuggestionsListBuilder;
+    private Executor mBuildExecutor;
+
+    // The latest build of the suggestions list (any other build is stale and will not be published)
+    private BuildTask mLatestBuild;
+
+    // Map from a given bucket (defined by a unique string) to the latest query result for that bucket
+    // Example buckets: "Person-Database", "Person-Network", "Companies-Database", "Companies-Network"
+    private final Map<String, SuggestionsResult> mResultMap = new HashMap<>();
+    private final Map<QueryToken, Set<String>> mWaitingForResults =
+            new LinkedHashMap<QueryToken, Set<String>>() {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<QueryToken, Set<String>> eldest) {
+                    return size() > MAX_WAITING_QUERIES;
+                }
+            };
+
+    // Generation of the latest query received (see QueryToken#getGeneration), results for older queries are dropped
+    private long mCurrentGeneration = 0;
+
+    SuggestionsCollector(final @NonNull SuggestionsVisibilityManager suggestionsVisibilityManager,
+                         final @NonNull SuggestionsListBuilder suggestionsListBuilder,
+                         final @NonNull Display<T> display) {
+        mSuggestionsVisibilityManager = suggestionsVisibilityManager;
+        mSuggestionsListBuilder = suggestionsListBuilder;
+        mDisplay = display;
+    }
+
+    // --------------------------------------------------
+    // Package-Private Methods
+    // --------------------------------------------------
+
+    /**
+     * See {@link SuggestionsAdapter#notifyQueryTokenReceived(QueryToken, List)}.
+     */
+    void notifyQueryTokenReceived(final @NonNull QueryToken queryToken, final @NonNull List<String> buckets) {
+        synchronized (mLock) {
+            // Stop waiting for the results of queries older than this one
+            long generation = queryToken.getGeneration();
+            if (generation > mCurrentGeneration) {
+                mCurrentGeneration = generation;
+                Iterator<QueryToken> iterator = mWaitingForResults.keySet().iterator();
+                while (iterator.hasNext()) {
+                    if (iterator.next().getGeneration() < generation) {
+                        iterator.remove();
+                    }
+                }
+            }
+
+            Set<String> currentBuckets = mWaitingForResults.get(queryToken);
+            if (currentBuckets == null) {
+                currentBuckets = new HashSet<>();
+            }
+            currentBuckets.addAll(buckets);
+            mWaitingForResults.put(queryToken, currentBuckets);
+        }
+    }
+
+    /**
+     * See {@link SuggestionsAdapter#addSuggestions(SuggestionsResult, String, TokenSource)}.
+     */
+    void addSuggestions(final @NonNull SuggestionsResult result,
+                        final @NonNull String bucket,
+                        final @NonNull TokenSource source) {
+        // Add result to proper bucket and remove from waiting
+        QueryToken query = result.getQueryToken();
+        Map<String, SuggestionsResult> latestResults;
+        synchronized (mLock) {
+            Set<String> waitingForBuckets = mWaitingForResults.get(query);
+            if (waitingForBuckets != null) {
+                waitingForBuckets.remove(bucket);
+                if (waitingForBuckets.size() == 0) {
+                    mWaitingForResults.remove(query);
+                }
+            }
+
+            // Drop stale results without rebuilding the list
+            if (isStale(query)) {
+                return;
+            }
+            mResultMap.put(bucket, result);
+            latestResults = new HashMap<>(mResultMap);
+        }
+
+        // Rebuild the list of suggestions in the appropriate order (replacing any build that is still pending)
+        BuildTask build = new BuildTask(query, latestResults, source.getCurrentTokenString(), source);
+        synchronized (mLock) {
+            if (mLatestBuild != null) {
+                mLatestBuild.cancel();
+            }
+            mLatestBuild = build;
+        }
+        Executor executor = (mBuildExecutor != null) ? mBuildExecutor : getDefaultBuildExecutor();
+        executor.execute(build);
+    }
+
+    /**
+     * Forgets the latest results, and abandons any build of the list that has not been published yet.
+     */
+    void clear() {
+        synchronized (mLock) {
+            mResultMap.clear();
+            // Make sure that a pending build does not bring the cleared suggestions back
+            if (mLatestBuild != null) {
+                mLatestBuild.cancel();
+                mLatestBuild = null;
+            }
+        }
+    }
+
+    @Nullable
+    SuggestionsVisibilityManager getSuggestionsManager() {
+        return mSuggestionsVisibilityManager;
+    }
+
+    void setSuggestionsManager(final @NonNull SuggestionsVisibilityManager suggestionsVisibilityManager) {
+        mSuggestionsVisibilityManager = suggestionsVisibilityManager;
+    }
+
+    @NonNull
+    SuggestionsListBuilder getSuggestionsListBuilder() {
+        return mSuggestionsListBuilder;
+    }
+
+    void setSuggestionsListBuilder(final @NonNull SuggestionsListBuilder suggestionsListBuilder) {
+        mSuggestionsListBuilder = suggestionsListBuilder;
+    }
+
+    /**
+     * See {@link SuggestionsAdapter#setBuildExecutor(Executor)}.
+     */
+    void setBuildExecutor(final @Nullable Executor executor) {
+        mBuildExecutor = executor;
+    }
+
+    // --------------------------------------------------
+    // Private Helper Methods
+    // --------------------------------------------------
+
+    /**
+     * Displays a newly built list of suggestions, unless the build has been superseded. This must be called on the UI
+     * thread.
+     *
+     * @param build the {@link BuildTask} that built the list
+     */
+    private void publishSuggestions(final @NonNull BuildTask build) {
+        synchronized (mLock) {
+            if (build != mLatestBuild || build.isCancelled() || isStale(build.mQueryToken)) {
+                return;
+            }
+            mLatestBuild = null;
+        }
+
+        // Swap the suggestions into the adapter, then display them if there are any
+        mDisplay.displaySuggestions(build.mPreparedSuggestions);
+        if (build.mSuggestionCount > 0) {
+            mSuggestionsVisibilityManager.displaySuggestions(true);
+        } else {
+            hideSuggestionsIfNecessary(build.mQueryToken, build.mSource);
+        }
+    }
+
+    @NonNull
+    private static synchronized Executor getDefaultBuildExecutor() {
+        if (sDefaultBuildExecutor == null) {
+            sDefaultBuildExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "SuggestionsListBuilder");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return sDefaultBuildExecutor;
+    }
+
+    /**
+     * Hides the suggestions if there are no more incoming queries.
+     *
+     * @param currentQuery the most recent {@link QueryToken}
+     * @param source       the associated {@link TokenSource} to use for reference
+     */
+    private void hideSuggestionsIfNecessary(final @NonNull QueryToken currentQuery,
+                                            final @NonNull TokenSource source) {
+        String queryTS = currentQuery.getTokenString();
+        String currentTS = source.getCurrentTokenString();
+        if (!isWaitingForResults(currentQuery) && queryTS != null && queryTS.equals(currentTS)) {
+            mSuggestionsVisibilityManager.displaySuggestions(false);
+        }
+    }
+
+    /**
+     * Determines if the results of a given {@link QueryToken} should no longer be displayed, because the query was
+     * cancelled or a newer query has been received.
+     *
+     * @param query the {@link QueryToken} the results are for
+     *
+     * @return true if the results are stale
+     */
+    private boolean isStale(@NonNull QueryToken query) {
+        long generation = query.getGeneration();
+        return query.isCancelled() || (generation != 0 && generation < mCurrentGeneration);
+    }
+
+    /**
+     * Determines if the adapter is still waiting for results for a given {@link QueryToken}
+     *
+     * @param currentQuery the {@link QueryToken} to check if waiting for results on
+     *
+     * @return true if still waiting for the results of the current query
+     */
+    private boolean isWaitingForResults(QueryToken currentQuery) {
+        synchronized (mLock) {
+            Set<String> buckets = mWaitingForResults.get(currentQuery);
+            return buckets != null && buckets.size() > 0;
+        }
+    }
+
+    /**
+     * Immutable list of suggestions with a stable ID for each row, which is unique within the list. The first row
+     * showing a suggestion uses its ID from {@link SuggestibleIds#getId(Suggestible)}, and any later rows showing the
+     * same suggestion are given new IDs by counting its occurrences, so each row keeps its ID as long as the duplicates
+     * stay in the same order. The IDs in use are tracked in a {@link SuggestibleIdSet} that is reused between builds,
+     * so no objects are created for each row.
+     */
+    static final class StableIdList extends AbstractList<Suggestible> {
+
+        static final StableIdList EMPTY =
+                new StableIdList(Collections.<Suggestible>emptyList(), new SuggestibleIdSet());
+
+        // Spreads the IDs of the duplicate rows of a suggestion (the 64-bit golden ratio)
+        private static final long OCCURRENCE_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+        private final List<Suggestible> mSuggestions;
+        private final long[] mIds;
+
+        /**
+         * @param suggestions the suggestions in the order they are displayed (which must not be modified afterwards)
+         * @param usedIds     the set to track the IDs in while building the list, which is cleared first
+         */
+        StableIdList(final @NonNull List<Suggestible> suggestions, final @NonNull SuggestibleIdSet usedIds) {
+            mSuggestions = suggestions;
+            mIds = new long[suggestions.size()];
+            // Note: Lists may be built on more than one thread, depending on the build executor
+            synchronized (usedIds) {
+                usedIds.clear();
+                usedIds.ensureCapacity(mIds.length);
+                for (int i = 0; i < mIds.length; i++) {
+                    long stableId = SuggestibleIds.getId(suggestions.get(i));
+                    long id = stableId;
+                    for (long occurrence = 1; usedIds.putIfAbsent(id, i) != SuggestibleIdSet.NOT_FOUND; occurrence++) {
+                        id = stableId ^ (occurrence * OCCURRENCE_MULTIPLIER);
+                    }
+                    mIds[i] = id;
+                }
+            }
+        }
+
+        @Override
+        public Suggestible get(int index) {
+            return mSuggestions.get(index);
+        }
+
+        @Override
+        public int size() {
+            return mSuggestions.size();
+        }
+
+        /**
+         * @return the stable ID of the row at the given index
+         */
+        long getId(int index) {
+            return mIds[index];
+        }
+    }
+
+    /**
+     * Builds the list of suggestions from a snapshot of the latest results, then publishes it on the UI thread.
+     */
+    private class BuildTask implements Runnable {
+
+        private final QueryToken mQueryToken;
+        private final SuggestionsListBuilder mListBuilder;
+        private final Map<String, SuggestionsResult> mLatestResults;
+        private final String mCurrentTokenString;
+        private final TokenSource mSource;
+        private volatile boolean mCancelled;
+
+        // Set once the list has been built
+        private T mPreparedSuggestions;
+        private int mSuggestionCount;
+
+        private BuildTask(final @NonNull QueryToken queryToken,
+                          final @NonNull Map<String, SuggestionsResult> latestResults,
+                          final @NonNull String currentTokenString,
+                          final @NonNull TokenSource source) {
+            mQueryToken = queryToken;
+            mListBuilder = mSuggestionsListBuilder;
+            mLatestResults = Collections.unmodifiableMap(latestResults);
+            mCurrentTokenString = currentTokenString;
+            mSource = source;
+        }
+
+        private void cancel() {
+            mCancelled = true;
+        }
+
+        private boolean isCancelled() {
+            return mCancelled || mQueryToken.isCancelled();
+        }
+
+        @Override
+        public void run() {
+            if (isCancelled()) {
+                return;
+            }
+            List<Suggestible> suggestions = mListBuilder.buildSuggestions(mLatestResults, mCurrentTokenString);
+            mSuggestionCount = suggestions.size();
+            mPreparedSuggestions = mDisplay.prepareSuggestions(Collections.unmodifiableList(suggestions));
+            if (isCancelled()) {
+                return;
+            }
+
+            // Publish immediately if the list was built on the UI thread
+            if (Looper.myLooper() == Looper.getMainLooper()) {
+                publishSuggestions(this);
+            } else {
+                mMainHandler.post(() -> publishSuggestions(this));
+            }
+        }
+    }
+}
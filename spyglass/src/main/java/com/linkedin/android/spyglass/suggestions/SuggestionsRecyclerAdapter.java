@@ -0,0 +1,338 @@
+/*
+* Copyright 2015 LinkedIn Corp. All rights reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*/
+
+package com.linkedin.android.spyglass.suggestions;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.linkedin.android.spyglass.suggestions.SuggestionsCollector.StableIdList;
+import com.linkedin.android.spyglass.suggestions.interfaces.Suggestible;
+import com.linkedin.android.spyglass.suggestions.interfaces.SuggestionsListBuilder;
+import com.linkedin.android.spyglass.suggestions.interfaces.SuggestionsVisibilityManager;
+import com.linkedin.android.spyglass.tokenization.QueryToken;
+import com.linkedin.android.spyglass.tokenization.interfaces.TokenSource;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Adapter class for displaying suggestions in a {@link RecyclerView}.
+ * <p>
+ * This works like the {@link SuggestionsAdapter}, except that when a new list of suggestions is built, the changes from
+ * the list being displayed are also found on the background thread (using {@link DiffUtil}). Only the rows that were
+ * inserted, moved, removed or changed are then updated, so a list that is refreshed on every keystroke does not rebind
+ * the rows that stayed the same.
+ * <p>
+ * Rows are matched up by their stable IDs, which are made from the class and {@link Suggestible#getSuggestibleId()} of
+ * their suggestions (and stay unique when a suggestion appears more than once). A row is only rebound if its
+ * suggestion is not the same instance as, or equal to, the suggestion it was showing, so suggestions that are created
+ * anew for every query should implement {@link Object#equals(Object)}.
+ * <p>
+ * The views are still created by the {@link SuggestionsListBuilder}. Each one is placed in a container view, which is
+ * passed back to the builder as the parent (and its current child as the view to reuse) when it is rebound. Containers
+ * are only reused for suggestions of the same view type (see {@link SuggestionsListBuilder#getItemViewType}).
+ */
+public class SuggestionsRecyclerAdapter extends RecyclerView.Adapter<SuggestionsRecyclerAdapter.SuggestionViewHolder> {
+
+    /**
+     * Interface to receive a callback when a suggestion is tapped.
+     */
+    public interface OnSuggestionClickListener {
+
+        /**
+         * Called when a suggestion is tapped.
+         *
+         * @param suggestion the {@link Suggestible} that was tapped
+         */
+        void onSuggestionClick(@NonNull Suggestible suggestion);
+    }
+
+    private final Context mContext;
+    private final Resources mResources;
+    private final LayoutInflater mInflater;
+    private final SuggestionsCollector<DiffedSuggestions> mCollector;
+
+    // Immutable list of the suggestions being displayed, only replaced (never modified) on the UI thread
+    private volatile StableIdList mSuggestions = StableIdList.EMPTY;
+
+    private OnSuggestionClickListener mClickListener;
+
+    public SuggestionsRecyclerAdapter(final @NonNull Context context,
+                                      final @NonNull SuggestionsVisibilityManager suggestionsVisibilityManager,
+                                      final @NonNull SuggestionsListBuilder suggestionsListBuilder) {
+        super();
+        mContext = context;
+        mResources = context.getResources();
+        mInflater = (LayoutInflater) context.getSystemService(Context.LAYOUT_INFLATER_SERVICE);
+        mCollector = new SuggestionsCollector<>(suggestionsVisibilityManager, suggestionsListBuilder,
+                new DiffDisplay());
+        setHasStableIds(true);
+    }
+
+    // --------------------------------------------------
+    // Public Methods
+    // --------------------------------------------------
+
+    /**
+     * Method to notify the adapter that a new {@link QueryToken} has been received and that
+     * suggestions will be added to the adapter once generated.
+     *
+     * @param queryToken the {@link QueryToken} that has been received
+     * @param buckets    a list of string dictating which buckets the future query results will go into
+     */
+    public void notifyQueryTokenReceived(@NonNull QueryToken queryToken,
+                                         @NonNull List<String> buckets) {
+        mCollector.notifyQueryTokenReceived(queryToken, buckets);
+    }
+
+    /**
+     * Add mention suggestions to a given bucket in the adapter (see
+     * {@link SuggestionsAdapter#addSuggestions(SuggestionsResult, String, TokenSource)}).
+     *
+     * @param result a {@link SuggestionsResult} containing the suggestions to add
+     * @param bucket a string representing the group to place the {@link SuggestionsResult} into
+     * @param source the associated {@link TokenSource} to use for reference
+     */
+    public void addSuggestions(final @NonNull SuggestionsResult result,
+                               final @NonNull String bucket,
+                               final @NonNull TokenSource source) {
+        mCollector.addSuggestions(result, bucket, source);
+    }
+
+    /**
+     * Clear all data from adapter.
+     */
+    public void clear() {
+        mCollector.clear();
+        int count = mSuggestions.size();
+        if (count > 0) {
+            mSuggestions = StableIdList.EMPTY;
+            notifyItemRangeRemoved(0, count);
+        }
+    }
+
+    /**
+     * Get the suggestion at the given position.
+     *
+     * @param position the position of the suggestion
+     * @return the {@link Suggestible} at that position, or null if there is none
+     */
+    @Nullable
+    public Suggestible getItem(int position) {
+        List<Suggestible> suggestions = mSuggestions;
+        return (position >= 0 && position < suggestions.size()) ? suggestions.get(position) : null;
+    }
+
+    // --------------------------------------------------
+    // RecyclerView.Adapter Overrides
+    // --------------------------------------------------
+
+    @Override
+    public int getItemCount() {
+        return mSuggestions.size();
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return mSuggestions.getId(position);
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        return mCollector.getSuggestionsListBuilder().getItemViewType(mSuggestions.get(position));
+    }
+
+    @NonNull
+    @Override
+    public SuggestionViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        FrameLayout container = new FrameLayout(mContext);
+        container.setLayoutParams(new ViewGroup.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT,
+                ViewGroup.LayoutParams.WRAP_CONTENT));
+        final SuggestionViewHolder holder = new SuggestionViewHolder(container);
+        container.setOnClickListener(v -> {
+            Suggestible suggestion = getItem(holder.getAdapterPosition());
+            if (suggestion != null && mClickListener != null) {
+                mClickListener.onSuggestionClick(suggestion);
+            }
+        });
+        return holder;
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull SuggestionViewHolder holder, int position) {
+        Suggestible suggestion = mSuggestions.get(position);
+        ViewGroup container = holder.mContainer;
+        View convertView = (container.getChildCount() > 0) ? container.getChildAt(0) : null;
+        SuggestionsListBuilder listBuilder = mCollector.getSuggestionsListBuilder();
+        View view = listBuilder.getView(suggestion, convertView, container, mContext, mInflater, mResources);
+        if (view != convertView) {
+            container.removeAllViews();
+            container.addView(view);
+        }
+    }
+
+    // --------------------------------------------------
+    // Setters
+    // --------------------------------------------------
+
+    /**
+     * Sets the listener to call when a suggestion is tapped.
+     *
+     * @param listener the {@link OnSuggestionClickListener} to use
+     */
+    public void setOnSuggestionClickListener(final @Nullable OnSuggestionClickListener listener) {
+        mClickListener = listener;
+    }
+
+    /**
+     * Sets the {@link com.linkedin.android.spyglass.suggestions.interfaces.SuggestionsVisibilityManager} to use.
+     *
+     * @param suggestionsVisibilityManager the {@link SuggestionsVisibilityManager} to use
+     */
+    public void setSuggestionsManager(final @NonNull SuggestionsVisibilityManager suggestionsVisibilityManager) {
+        mCollector.setSuggestionsManager(suggestionsVisibilityManager);
+    }
+
+    /**
+     * Sets the {@link Executor} that the list of suggestions is built and compared on (see
+     * {@link SuggestionsAdapter#setBuildExecutor(Executor)}).
+     *
+     * @param executor the {@link Executor} to use, or null to use the default
+     */
+    public void setBuildExecutor(final @Nullable Executor executor) {
+        mCollector.setBuildExecutor(executor);
+    }
+
+    /**
+     * Sets the {@link SuggestionsListBuilder} to use.
+     *
+     * @param suggestionsListBuilder the {@link SuggestionsListBuilder} to use
+     */
+    public void setSuggestionsListBuilder(final @NonNull SuggestionsListBuilder suggestionsListBuilder) {
+        mCollector.setSuggestionsListBuilder(suggestionsListBuilder);
+    }
+
+    // --------------------------------------------------
+    // Helper Classes
+    // --------------------------------------------------
+
+    /**
+     * {@link RecyclerView.ViewHolder} for the container of a suggestion's view.
+     */
+    public static class SuggestionViewHolder extends RecyclerView.ViewHolder {
+
+        private final ViewGroup mContainer;
+
+        private SuggestionViewHolder(@NonNull ViewGroup container) {
+            super(container);
+            mContainer = container;
+        }
+    }
+
+    /**
+     * A newly built list of suggestions, along with the changes from the list it is replacing.
+     */
+    private static class DiffedSuggestions {
+
+        private final StableIdList mOldSuggestions;
+        private final StableIdList mNewSuggestions;
+        private final DiffUtil.DiffResult mDiff;
+
+        private DiffedSuggestions(final @NonNull StableIdList oldSuggestions,
+                                  final @NonNull StableIdList newSuggestions,
+                                  final @NonNull DiffUtil.DiffResult diff) {
+            mOldSuggestions = oldSuggestions;
+            mNewSuggestions = newSuggestions;
+            mDiff = diff;
+        }
+    }
+
+    /**
+     * Finds the changes between lists of suggestions on the build thread, then applies them on the UI thread.
+     */
+    private class DiffDisplay implements SuggestionsCollector.Display<DiffedSuggestions> {
+
+        // IDs in use while preparing a list, reused between builds
+        private final SuggestibleIdSet mUsedIds = new SuggestibleIdSet();
+
+        @NonNull
+        @Override
+        public DiffedSuggestions prepareSuggestions(@NonNull List<Suggestible> suggestions) {
+            // Note: Only the latest build is displayed, so the list being displayed will not change before this one is
+            StableIdList oldSuggestions = mSuggestions;
+            StableIdList newSuggestions = new StableIdList(suggestions, mUsedIds);
+            DiffUtil.DiffResult diff = DiffUtil.calculateDiff(
+                    new SuggestionsDiffCallback(oldSuggestions, newSuggestions));
+            return new DiffedSuggestions(oldSuggestions, newSuggestions, diff);
+        }
+
+        @Override
+        public void displaySuggestions(@NonNull DiffedSuggestions suggestions) {
+            boolean diffIsCurrent = (suggestions.mOldSuggestions == mSuggestions);
+            mSuggestions = suggestions.mNewSuggestions;
+            if (diffIsCurrent) {
+                suggestions.mDiff.dispatchUpdatesTo(SuggestionsRecyclerAdapter.this);
+            } else {
+                notifyDataSetChanged();
+            }
+        }
+    }
+
+    /**
+     * Compares two lists of suggestions, matching up their rows by stable ID.
+     */
+    private static class SuggestionsDiffCallback extends DiffUtil.Callback {
+
+        private final StableIdList mOldSuggestions;
+        private final StableIdList mNewSuggestions;
+
+        private SuggestionsDiffCallback(final @NonNull StableIdList oldSuggestions,
+                                        final @NonNull StableIdList newSuggestions) {
+            mOldSuggestions = oldSuggestions;
+            mNewSuggestions = newSuggestions;
+        }
+
+        @Override
+        public int getOldListSize() {
+            return mOldSuggestions.size();
+        }
+
+        @Override
+        public int getNewListSize() {
+            return mNewSuggestions.size();
+        }
+
+        @Override
+        public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+            return mOldSuggestions.get(oldItemPosition).getClass() == mNewSuggestions.get(newItemPosition).getClass()
+                    && mOldSuggestions.getId(oldItemPosition) == mNewSuggestions.getId(newItemPosition);
+        }
+
+        @Override
+        public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+            Suggestible oldItem = mOldSuggestions.get(oldItemPosition);
+            Suggestible newItem = mNewSuggestions.get(newItemPosition);
+            return oldItem == newItem || oldItem.equals(newItem);
+        }
+    }
+}
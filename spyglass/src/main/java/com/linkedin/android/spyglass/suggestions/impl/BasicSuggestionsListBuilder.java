@@ -23,26 +23,66 @@ import android.view.ViewGroup;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import com.linkedin.android.spyglass.suggestions.SuggestibleIdSet;
 import com.linkedin.android.spyglass.suggestions.SuggestionsResult;
 import com.linkedin.android.spyglass.suggestions.interfaces.Suggestible;
 import com.linkedin.android.spyglass.suggestions.interfaces.SuggestionsListBuilder;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
 /**
  * Basic implementation of the {@link SuggestionsListBuilder} interface.
+ * <p>
+ * If deduplication is enabled (see {@link #setDeduplicationEnabled(boolean)}), a suggestion that is returned for more
+ * than one bucket (i.e. a person found in both "contacts" and "directory") is only shown once, for the bucket with the
+ * highest precedence (see {@link #setBucketPrecedence(String...)}). Suggestions are matched by
+ * {@link Suggestible#getSuggestibleId()} alone, so copies of the same result with different classes (i.e. from
+ * different sources) are also found. The IDs are kept in a primitive set that is reused between builds, so no objects
+ * are created for each suggestion.
  */
 public class BasicSuggestionsListBuilder implements SuggestionsListBuilder {
 
+    private List<String> mBucketPrecedence = Collections.emptyList();
+    private boolean mDeduplicationEnabled = false;
+
+    // Suggestions seen during the current build, only used if deduplication is enabled
+    private final SuggestibleIdSet mSeenSuggestions = new SuggestibleIdSet();
+
+    /**
+     * Sets whether a suggestion returned for more than one bucket should only be shown once.
+     *
+     * @param enabled true to remove the duplicates
+     */
+    public synchronized void setDeduplicationEnabled(final boolean enabled) {
+        mDeduplicationEnabled = enabled;
+    }
+
+    /**
+     * Sets the order of precedence of the buckets. When deduplication is enabled, a suggestion that is in more than one
+     * bucket is kept in the first of them, and the buckets are added to the list in this order (with any other buckets
+     * after them, by name).
+     *
+     * @param buckets the buckets, from highest to lowest precedence
+     */
+    public synchronized void setBucketPrecedence(final @NonNull String... buckets) {
+        mBucketPrecedence = Collections.unmodifiableList(new ArrayList<>(Arrays.asList(buckets)));
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     @NonNull
-    public List<Suggestible> buildSuggestions(final @NonNull Map<String, SuggestionsResult> latestResults,
-                                              final @NonNull String currentTokenString) {
+    public synchronized List<Suggestible> buildSuggestions(final @NonNull Map<String, SuggestionsResult> latestResults,
+                                                           final @NonNull String currentTokenString) {
+        if (mDeduplicationEnabled) {
+            return buildDeduplicatedSuggestions(latestResults, currentTokenString);
+        }
+
         List<Suggestible> results = new ArrayList<>();
         for (Map.Entry<String, SuggestionsResult> entry : latestResults.entrySet()) {
             SuggestionsResult result = entry.getValue();
@@ -53,6 +93,83 @@ public class BasicSuggestionsListBuilder implements SuggestionsListBuilder {
         return results;
     }
 
+    // --------------------------------------------------
+    // Protected Methods
+    // --------------------------------------------------
+
+    /**
+     * @return true if suggestions returned for more than one bucket should only be shown once
+     */
+    protected synchronized boolean isDeduplicationEnabled() {
+        return mDeduplicationEnabled;
+    }
+
+    /**
+     * @return true if the precedence of the buckets has been set with {@link #setBucketPrecedence(String...)}
+     */
+    protected synchronized boolean hasBucketPrecedence() {
+        return !mBucketPrecedence.isEmpty();
+    }
+
+    /**
+     * Compares two buckets by their precedence (see {@link #setBucketPrecedence(String...)}).
+     *
+     * @return a negative number if bucket1 has a higher precedence than bucket2, a positive number if it has a lower
+     * precedence, or zero if they are the same bucket
+     */
+    protected synchronized int compareBucketPrecedence(final @NonNull String bucket1, final @NonNull String bucket2) {
+        int rank1 = mBucketPrecedence.indexOf(bucket1);
+        int rank2 = mBucketPrecedence.indexOf(bucket2);
+        rank1 = (rank1 >= 0) ? rank1 : Integer.MAX_VALUE;
+        rank2 = (rank2 >= 0) ? rank2 : Integer.MAX_VALUE;
+        return (rank1 != rank2) ? Integer.compare(rank1, rank2) : bucket1.compareTo(bucket2);
+    }
+
+    /**
+     * Returns the set used to find duplicate suggestions. It is shared between builds, so it must only be used while
+     * holding the lock on this builder (i.e. from within {@link #buildSuggestions}).
+     */
+    @NonNull
+    SuggestibleIdSet getSeenSuggestions() {
+        return mSeenSuggestions;
+    }
+
+    // --------------------------------------------------
+    // Private Helper Methods
+    // --------------------------------------------------
+
+    @NonNull
+    private List<Suggestible> buildDeduplicatedSuggestions(final @NonNull Map<String, SuggestionsResult> latestResults,
+                                                           final @NonNull String currentTokenString) {
+        // Add the buckets in order of precedence, so the first copy of each suggestion is the one that is kept
+        List<String> buckets = new ArrayList<>(latestResults.keySet());
+        Collections.sort(buckets, this::compareBucketPrecedence);
+
+        int total = 0;
+        for (int i = 0; i < buckets.size(); i++) {
+            total += latestResults.get(buckets.get(i)).getSuggestions().size();
+        }
+        SuggestibleIdSet seen = mSeenSuggestions;
+        seen.clear();
+        seen.ensureCapacity(total);
+
+        List<Suggestible> results = new ArrayList<>(total);
+        for (int i = 0; i < buckets.size(); i++) {
+            SuggestionsResult result = latestResults.get(buckets.get(i));
+            if (!currentTokenString.equalsIgnoreCase(result.getQueryToken().getTokenString())) {
+                continue;
+            }
+            List<? extends Suggestible> suggestions = result.getSuggestions();
+            for (int j = 0; j < suggestions.size(); j++) {
+                Suggestible suggestion = suggestions.get(j);
+                if (seen.putIfAbsent(suggestion.getSuggestibleId(), i) == SuggestibleIdSet.NOT_FOUND) {
+                    results.add(suggestion);
+                }
+            }
+        }
+        return results;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -0,0 +1,283 @@
+/*
+* Copyright 2015 LinkedIn Corp. All rights reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*/
+
+package com.linkedin.android.spyglass.suggestions.impl;
+
+import androidx.annotation.NonNull;
+
+import com.linkedin.android.spyglass.suggestions.SuggestibleIdSet;
+import com.linkedin.android.spyglass.suggestions.SuggestionsResult;
+import com.linkedin.android.spyglass.suggestions.interfaces.Suggestible;
+import com.linkedin.android.spyglass.suggestions.interfaces.SuggestionsListBuilder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Implementation of the {@link SuggestionsListBuilder} interface that merges the suggestions from every bucket into a
+ * single list, in the order given by a {@link Comparator}, and keeps only the first few.
+ * <p>
+ * The suggestions in each bucket are kept in sorted order between builds, and only a bucket whose result has changed
+ * is sorted again. A bucket may also be declared as already sorted (see {@link #setBucketSorted(String, boolean)}),
+ * in which case it is never sorted. The buckets are then combined with a k-way merge that stops as soon as the maximum
+ * number of suggestions has been reached, so the cost of a build depends on the size of the bucket that changed and on
+ * the number of suggestions displayed, rather than on the total number of suggestions in all of the buckets.
+ * <p>
+ * Suggestions that are equal according to the {@link Comparator} are ordered by the precedence of their buckets (see
+ * {@link #setBucketPrecedence(String...)}). If no precedence has been set, they are ordered by bucket in the order
+ * that the buckets were declared in with {@link #setBucketSorted(String, boolean)} (with any other buckets after
+ * them, by name). If deduplication is enabled, every suggestion has to be looked at to find
+ * the duplicates, but this is done without creating any objects.
+ */
+public class MergingSuggestionsListBuilder extends BasicSuggestionsListBuilder {
+
+    /**
+     * Maximum number of suggestions for a builder that keeps all of them.
+     */
+    public static final int NO_LIMIT = Integer.MAX_VALUE;
+
+    private final Comparator<? super Suggestible> mComparator;
+    private final int mMaxSuggestions;
+
+    // Tag for a suggestion that has already been added to the merged list
+    private static final int ADDED = -2;
+
+    // Buckets that have been declared, in order of priority, and whether each one is already sorted
+    private final List<String> mDeclaredBuckets = new ArrayList<>();
+    private final Set<String> mSortedBuckets = new HashSet<>();
+
+    // Sorted suggestions for the latest result of each bucket
+    private final Map<String, SortedBucket> mSortedResults = new HashMap<>();
+
+    /**
+     * @param comparator     the order to display the suggestions in
+     * @param maxSuggestions the maximum number of suggestions to display, or {@link #NO_LIMIT}
+     */
+    public MergingSuggestionsListBuilder(final @NonNull Comparator<? super Suggestible> comparator,
+                                         final int maxSuggestions) {
+        if (maxSuggestions <= 0) {
+            throw new IllegalArgumentException("maxSuggestions must be positive");
+        }
+        mComparator = comparator;
+        mMaxSuggestions = maxSuggestions;
+    }
+
+    /**
+     * Declares a bucket, and whether the suggestions returned for it are already sorted in the order of this builder's
+     * {@link Comparator}. By default, they are not. A bucket does not need to be declared, but unless the precedence
+     * of the buckets is set with {@link #setBucketPrecedence(String...)}, declared buckets come first when suggestions
+     * are equal, in the order they were declared.
+     *
+     * @param bucket the name of the bucket
+     * @param sorted true if the suggestions in the bucket are already sorted (so they never need to be sorted again)
+     */
+    public synchronized void setBucketSorted(final @NonNull String bucket, final boolean sorted) {
+        if (!mDeclaredBuckets.contains(bucket)) {
+            mDeclaredBuckets.add(bucket);
+        }
+        if (sorted) {
+            mSortedBuckets.add(bucket);
+        } else {
+            mSortedBuckets.remove(bucket);
+        }
+        // The bucket may need to be sorted differently now
+        mSortedResults.remove(bucket);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @NonNull
+    public synchronized List<Suggestible> buildSuggestions(final @NonNull Map<String, SuggestionsResult> latestResults,
+                                                           final @NonNull String currentTokenString) {
+        // Forget the buckets that no longer have results
+        Iterator<String> iterator = mSortedResults.keySet().iterator();
+        while (iterator.hasNext()) {
+            if (!latestResults.containsKey(iterator.next())) {
+                iterator.remove();
+            }
+        }
+
+        // Find the sorted suggestions of every bucket with results for the current token (only sorting the buckets
+        // whose results have changed)
+        List<SortedBucket> buckets = new ArrayList<>(latestResults.size());
+        for (Map.Entry<String, SuggestionsResult> entry : latestResults.entrySet()) {
+            SuggestionsResult result = entry.getValue();
+            if (!currentTokenString.equalsIgnoreCase(result.getQueryToken().getTokenString())) {
+                continue;
+            }
+            String bucket = entry.getKey();
+            SortedBucket sortedBucket = mSortedResults.get(bucket);
+            if (sortedBucket == null || sortedBucket.mResult != result) {
+                sortedBucket = new SortedBucket(bucket, result, sort(bucket, result.getSuggestions()));
+                mSortedResults.put(bucket, sortedBucket);
+            }
+            if (!sortedBucket.mSuggestions.isEmpty()) {
+                buckets.add(sortedBucket);
+            }
+        }
+
+        return merge(buckets);
+    }
+
+    // --------------------------------------------------
+    // Protected Methods
+    // --------------------------------------------------
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * If no precedence has been set, the buckets are compared by the order they were declared in with
+     * {@link #setBucketSorted(String, boolean)}.
+     */
+    @Override
+    protected synchronized int compareBucketPrecedence(final @NonNull String bucket1, final @NonNull String bucket2) {
+        if (hasBucketPrecedence() || mDeclaredBuckets.isEmpty()) {
+            return super.compareBucketPrecedence(bucket1, bucket2);
+        }
+        int rank1 = mDeclaredBuckets.indexOf(bucket1);
+        int rank2 = mDeclaredBuckets.indexOf(bucket2);
+        rank1 = (rank1 >= 0) ? rank1 : Integer.MAX_VALUE;
+        rank2 = (rank2 >= 0) ? rank2 : Integer.MAX_VALUE;
+        return (rank1 != rank2) ? Integer.compare(rank1, rank2) : bucket1.compareTo(bucket2);
+    }
+
+    // --------------------------------------------------
+    // Private Helper Methods & Classes
+    // --------------------------------------------------
+
+    @NonNull
+    private List<? extends Suggestible> sort(final @NonNull String bucket,
+                                             final @NonNull List<? extends Suggestible> suggestions) {
+        if (mSortedBuckets.contains(bucket)) {
+            return suggestions;
+        }
+        List<Suggestible> sorted = new ArrayList<>(suggestions);
+        Collections.sort(sorted, mComparator);
+        return sorted;
+    }
+
+    /**
+     * Merges the sorted buckets, stopping once the maximum number of suggestions has been reached.
+     */
+    @NonNull
+    private List<Suggestible> merge(final @NonNull List<SortedBucket> buckets) {
+        if (buckets.isEmpty()) {
+            return new ArrayList<>();
+        }
+        if (buckets.size() == 1 && !isDeduplicationEnabled()) {
+            List<? extends Suggestible> suggestions = buckets.get(0).mSuggestions;
+            return new ArrayList<>(suggestions.subList(0, Math.min(suggestions.size(), mMaxSuggestions)));
+        }
+
+        // Rank the buckets by precedence, which also decides the order of equal suggestions
+        Collections.sort(buckets, (bucket1, bucket2) -> compareBucketPrecedence(bucket1.mName, bucket2.mName));
+        int total = 0;
+        for (int i = 0; i < buckets.size(); i++) {
+            total += buckets.get(i).mSuggestions.size();
+        }
+
+        // Tag each suggestion with the bucket it should be shown for (the first one it is in)
+        SuggestibleIdSet owners = null;
+        if (isDeduplicationEnabled()) {
+            owners = getSeenSuggestions();
+            owners.clear();
+            owners.ensureCapacity(total);
+            for (int i = 0; i < buckets.size(); i++) {
+                List<? extends Suggestible> suggestions = buckets.get(i).mSuggestions;
+                for (int j = 0; j < suggestions.size(); j++) {
+                    owners.putIfAbsent(suggestions.get(j).getSuggestibleId(), i);
+                }
+            }
+        }
+
+        // Each cursor points at the next suggestion of a bucket
+        PriorityQueue<BucketCursor> queue = new PriorityQueue<>(buckets.size());
+        for (int i = 0; i < buckets.size(); i++) {
+            queue.add(new BucketCursor(buckets.get(i), i));
+        }
+
+        List<Suggestible> merged = new ArrayList<>(Math.min(total, mMaxSuggestions));
+        while (merged.size() < mMaxSuggestions && !queue.isEmpty()) {
+            BucketCursor cursor = queue.poll();
+            Suggestible suggestion = cursor.current();
+            if (owners == null) {
+                merged.add(suggestion);
+            } else {
+                // Skip the copies in other buckets, and any repeats within the bucket
+                long id = suggestion.getSuggestibleId();
+                if (owners.get(id) == cursor.mRank) {
+                    merged.add(suggestion);
+                    owners.put(id, ADDED);
+                }
+            }
+            if (cursor.advance()) {
+                queue.add(cursor);
+            }
+        }
+        return merged;
+    }
+
+    private static class SortedBucket {
+
+        private final String mName;
+        private final SuggestionsResult mResult;
+        private final List<? extends Suggestible> mSuggestions;
+
+        private SortedBucket(final @NonNull String name,
+                             final @NonNull SuggestionsResult result,
+                             final @NonNull List<? extends Suggestible> suggestions) {
+            mName = name;
+            mResult = result;
+            mSuggestions = suggestions;
+        }
+    }
+
+    private class BucketCursor implements Comparable<BucketCursor> {
+
+        private final SortedBucket mBucket;
+        // Position of the bucket in order of precedence
+        private final int mRank;
+        private int mIndex = 0;
+
+        private BucketCursor(final @NonNull SortedBucket bucket, final int rank) {
+            mBucket = bucket;
+            mRank = rank;
+        }
+
+        @NonNull
+        private Suggestible current() {
+            return mBucket.mSuggestions.get(mIndex);
+        }
+
+        private boolean advance() {
+            return ++mIndex < mBucket.mSuggestions.size();
+        }
+
+        @Override
+        public int compareTo(final @NonNull BucketCursor other) {
+            int result = mComparator.compare(current(), other.current());
+            return (result != 0) ? result : Integer.compare(mRank, other.mRank);
+        }
+    }
+}
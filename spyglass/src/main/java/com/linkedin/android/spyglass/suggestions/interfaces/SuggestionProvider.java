@@ -0,0 +1,78 @@
+/*
+ * Copyright 2015 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package com.linkedin.android.spyglass.suggestions.interfaces;
+
+import androidx.annotation.NonNull;
+
+import com.linkedin.android.spyglass.suggestions.SuggestionProviderRunner;
+import com.linkedin.android.spyglass.tokenization.QueryToken;
+
+import java.util.List;
+
+/**
+ * Interface for a source of suggestions for a single bucket (i.e. local contacts, or a remote search service). Unlike a
+ * {@link com.linkedin.android.spyglass.tokenization.interfaces.QueryTokenReceiver}, a provider does not need to manage
+ * its own threads: a {@link SuggestionProviderRunner} calls all of its providers in parallel on an
+ * {@link java.util.concurrent.Executor} and passes the results on to a {@link SuggestionsResultListener} as they
+ * arrive.
+ */
+public interface SuggestionProvider {
+
+    /**
+     * Returns the bucket that the suggestions from this provider are grouped under. The bucket must be unique among the
+     * providers given to a {@link SuggestionProviderRunner}.
+     *
+     * @return the name of the bucket
+     */
+    @NonNull
+    String getBucket();
+
+    /**
+     * Determines if the provider has any suggestions for the given {@link QueryToken}. If it does not, the provider is
+     * not called and its bucket is not waited for. This is called on the UI thread, so it should be cheap.
+     *
+     * @param queryToken the {@link QueryToken} to check
+     * @return true if {@link #provideSuggestions(QueryToken, Callback)} should be called for the token
+     */
+    default boolean canProvideSuggestions(@NonNull QueryToken queryToken) {
+        return true;
+    }
+
+    /**
+     * Finds the suggestions for the given {@link QueryToken}. This is called on a background thread, and the results
+     * may be returned through the callback either before this returns or later (i.e. from a network callback).
+     * <p>
+     * The callback should be called once. Any results after the first, after the deadline for the bucket has passed or
+     * after the query has been replaced by a newer one (see {@link QueryToken#isCancelled()}) are ignored.
+     *
+     * @param queryToken the {@link QueryToken} to find suggestions for
+     * @param callback   the {@link Callback} to return the suggestions through
+     */
+    void provideSuggestions(@NonNull QueryToken queryToken, @NonNull Callback callback);
+
+    /**
+     * Callback used by a {@link SuggestionProvider} to return its suggestions. It may be called from any thread.
+     */
+    interface Callback {
+
+        /**
+         * Called with the suggestions for the query. An empty list should be passed if there were none, or if they could
+         * not be found, so that the bucket is no longer waited for.
+         *
+         * @param suggestions the suggestions for the query
+         */
+        void onSuggestionsReady(@NonNull List<? extends Suggestible> suggestions);
+    }
+}
@@ -35,6 +35,10 @@ public interface SuggestionsListBuilder {
     /**
      * Create the list of suggestions from the newest {@link SuggestionsResult} received for every bucket. This
      * allows you to control the exact order of the suggestions.
+     * <p>
+     * Note: When used with a {@link com.linkedin.android.spyglass.suggestions.SuggestionsAdapter}, this is called on a
+     * background thread by default, so it must not touch any views. The map and the results in it are not modified
+     * once they are passed in.
      *
      * @param latestResults      newest {@link SuggestionsResult} for every bucket
      * @param currentTokenString the most recent token, as typed by the user
@@ -45,6 +49,31 @@ public interface SuggestionsListBuilder {
     List<Suggestible> buildSuggestions(final @NonNull Map<String, SuggestionsResult> latestResults,
                                        final @NonNull String currentTokenString);
 
+    /**
+     * Returns the number of types of views that {@link #getView} creates. Views are only reused for suggestions of the
+     * same type, so a builder that creates different layouts for different kinds of suggestions (i.e. people and
+     * hashtags) should declare a type for each one.
+     * <p>
+     * Note: A {@link android.widget.ListView} only reads this when its adapter is set, so it should not change.
+     *
+     * @return the number of view types, at least 1
+     */
+    default int getViewTypeCount() {
+        return 1;
+    }
+
+    /**
+     * Returns the type of view that {@link #getView} creates for the given suggestion. The convertView passed to
+     * {@link #getView} is always a view that was created for a suggestion of the same type.
+     *
+     * @param suggestion the {@link Suggestible} to get the view type for
+     *
+     * @return the view type, between 0 and {@link #getViewTypeCount()} - 1
+     */
+    default int getItemViewType(final @NonNull Suggestible suggestion) {
+        return 0;
+    }
+
     /**
      * Build a basic view for the given object.
      *
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2015 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package com.linkedin.android.spyglass.tokenization;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.linkedin.android.spyglass.tokenization.interfaces.Tokenizer;
+
+/**
+ * Class that represents a valid mention token found within a block of text by
+ * {@link Tokenizer#findAllTokens(android.text.Spanned)}. Unlike a {@link QueryToken}, it refers to the token by its
+ * location within the text instead of holding a copy of it.
+ */
+public class CandidateToken {
+
+    private final int mStart;
+    private final int mEnd;
+
+    // the explicit trigger at the start of the token (otherwise, null)
+    @Nullable
+    private final String mExplicitTrigger;
+
+    public CandidateToken(int start, int end, @Nullable String explicitTrigger) {
+        mStart = start;
+        mEnd = end;
+        mExplicitTrigger = explicitTrigger;
+    }
+
+    /**
+     * @return index of the first character in the token
+     */
+    public int getStart() {
+        return mStart;
+    }
+
+    /**
+     * @return index after the last character in the token
+     */
+    public int getEnd() {
+        return mEnd;
+    }
+
+    /**
+     * @return the explicit character at the start of the token, or the null character if the token is implicit
+     */
+    public char getExplicitChar() {
+        return (mExplicitTrigger != null) ? mExplicitTrigger.charAt(0) : 0;
+    }
+
+    /**
+     * @return the explicit trigger at the start of the token, or null if the token is implicit
+     */
+    @Nullable
+    public String getExplicitTrigger() {
+        return mExplicitTrigger;
+    }
+
+    /**
+     * @return true if the token is explicit
+     */
+    public boolean isExplicit() {
+        return mExplicitTrigger != null;
+    }
+
+    /**
+     * Creates a {@link QueryToken} that can be used to query for suggestions for this token.
+     *
+     * @param text the text in which the token was found
+     * @return a new {@link QueryToken} containing the token string
+     */
+    @NonNull
+    public QueryToken toQueryToken(@NonNull CharSequence text) {
+        String tokenString = text.subSequence(mStart, mEnd).toString();
+        return (mExplicitTrigger != null) ? new QueryToken(tokenString, mExplicitTrigger) : new QueryToken(tokenString);
+    }
+}
@@ -15,6 +15,7 @@
 package com.linkedin.android.spyglass.tokenization;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import com.linkedin.android.spyglass.tokenization.interfaces.QueryTokenReceiver;
 import com.linkedin.android.spyglass.tokenization.interfaces.Tokenizer;
@@ -25,7 +26,9 @@ import java.io.Serializable;
  * Class that represents a token from a {@link Tokenizer} that can be used to query for suggestions.
  * <p>
  * Note that if the query is explicit, the explicit character has not been removed from the start of the token string.
- * To get the string without any explicit character, use {@link #getKeywords()}.
+ * To get the string without any explicit character, use {@link #getKeywords()}. If the {@link Tokenizer} supports
+ * explicit triggers longer than a single character, the trigger that was typed is given by
+ * {@link #getExplicitTrigger()}.
  */
 public class QueryToken implements Serializable {
 
@@ -35,6 +38,16 @@ public class QueryToken implements Serializable {
     // if the query was explicit, then this was the character the user typed (otherwise, null char)
     private char mExplicitChar = 0;
 
+    // if the query was explicit, then this was the full trigger the user typed (otherwise, null)
+    @Nullable
+    private String mExplicitTrigger;
+
+    // increasing number given to the query when it was sent to the QueryTokenReceiver (otherwise, zero)
+    private transient long mGeneration = 0;
+
+    // set once the results of the query are no longer needed, i.e. because a newer query was sent
+    private transient volatile boolean mCancelled = false;
+
     public QueryToken(@NonNull String tokenString) {
         mTokenString = tokenString;
     }
@@ -42,6 +55,13 @@ public class QueryToken implements Serializable {
     public QueryToken(@NonNull String tokenString, char explicitChar) {
         this(tokenString);
         mExplicitChar = explicitChar;
+        mExplicitTrigger = (explicitChar != 0) ? String.valueOf(explicitChar) : null;
+    }
+
+    public QueryToken(@NonNull String tokenString, @NonNull String explicitTrigger) {
+        this(tokenString);
+        mExplicitChar = explicitTrigger.length() > 0 ? explicitTrigger.charAt(0) : 0;
+        mExplicitTrigger = explicitTrigger.length() > 0 ? explicitTrigger : null;
     }
 
     /**
@@ -60,6 +80,9 @@ public class QueryToken implements Serializable {
      */
     @NonNull
     public String getKeywords() {
+        if (mExplicitTrigger != null && mTokenString.startsWith(mExplicitTrigger)) {
+            return mTokenString.substring(mExplicitTrigger.length());
+        }
         return (mExplicitChar != 0) ? mTokenString.substring(1) : mTokenString;
     }
 
@@ -70,6 +93,14 @@ public class QueryToken implements Serializable {
         return mExplicitChar;
     }
 
+    /**
+     * @return the explicit trigger used in the query (i.e. "@" or "+["), or null if the query is implicit
+     */
+    @Nullable
+    public String getExplicitTrigger() {
+        return mExplicitTrigger;
+    }
+
     /**
      * @return true if the query is explicit
      */
@@ -77,6 +108,44 @@ public class QueryToken implements Serializable {
         return mExplicitChar != 0;
     }
 
+    /**
+     * Returns the generation of the query. Each query sent to the {@link QueryTokenReceiver} by the
+     * {@link com.linkedin.android.spyglass.ui.MentionsEditText} has a greater generation than the queries sent before
+     * it, so results for older generations can be recognized and dropped.
+     *
+     * @return the generation of the query, or zero if it has not been sent
+     */
+    public long getGeneration() {
+        return mGeneration;
+    }
+
+    /**
+     * Sets the generation of the query. Called when the query is sent to the {@link QueryTokenReceiver}.
+     *
+     * @param generation the generation of the query
+     */
+    public void setGeneration(long generation) {
+        mGeneration = generation;
+    }
+
+    /**
+     * Determines if the results of the query are no longer needed (i.e. because a newer query was sent, or there is no
+     * longer a valid token at the cursor). A {@link QueryTokenReceiver} may check this, from any thread, to stop a
+     * search early. Results for a cancelled query are dropped.
+     *
+     * @return true if the query has been cancelled
+     */
+    public boolean isCancelled() {
+        return mCancelled;
+    }
+
+    /**
+     * Cancels the query, so that its results are no longer used (see {@link #isCancelled()}).
+     */
+    public void cancel() {
+        mCancelled = true;
+    }
+
     @Override
     public boolean equals(Object o) {
         QueryToken that = (QueryToken) o;
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2015 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package com.linkedin.android.spyglass.tokenization.impl;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Immutable set of characters compiled from a string for constant-time membership tests. Used by the
+ * {@link WordTokenizer} to classify explicit and word-breaking characters without scanning the strings in
+ * {@link WordTokenizerConfig} for every character it looks at.
+ * <p>
+ * The characters are stored in a dense bitmap that is only as large as the highest character in the set. Like the
+ * rest of the tokenizer, the set works on UTF-16 units: each half of a surrogate pair in the string is added on its
+ * own, which keeps {@link #contains(char)} consistent with comparing against each char of the original string.
+ */
+public final class CharClassifier {
+
+    private static final long[] EMPTY_BITS = new long[0];
+
+    // One bit per UTF-16 unit, indexed by (c >>> 6)
+    @NonNull
+    private final long[] mBits;
+
+    public CharClassifier(final @NonNull CharSequence chars) {
+        // Size the bitmap to the highest UTF-16 unit in the set
+        int maxUnit = -1;
+        for (int i = 0; i < chars.length(); i++) {
+            maxUnit = Math.max(maxUnit, chars.charAt(i));
+        }
+
+        long[] bits = maxUnit < 0 ? EMPTY_BITS : new long[(maxUnit >>> 6) + 1];
+        for (int i = 0; i < chars.length(); i++) {
+            char c = chars.charAt(i);
+            bits[c >>> 6] |= 1L << c;
+        }
+        mBits = bits;
+    }
+
+    /**
+     * Determines if the given UTF-16 unit is in this set.
+     *
+     * @param c character to test
+     * @return true if c is in the set
+     */
+    public boolean contains(final char c) {
+        int index = c >>> 6;
+        return index < mBits.length && (mBits[index] & (1L << c)) != 0;
+    }
+
+    /**
+     * @return true if the set does not contain any characters
+     */
+    public boolean isEmpty() {
+        return mBits.length == 0;
+    }
+}
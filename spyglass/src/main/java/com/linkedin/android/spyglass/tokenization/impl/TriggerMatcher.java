@@ -0,0 +1,223 @@
+/*
+ * Copyright 2015 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package com.linkedin.android.spyglass.tokenization.impl;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Aho-Corasick automaton that recognizes every occurrence of a set of trigger strings in a single pass over the text.
+ * Used by the {@link TriggerTokenizer}.
+ * <p>
+ * The text is fed one character at a time through {@link #nextState(int, char)}. After each character, the triggers
+ * ending at that character are found by following {@link #firstMatch(int)} and {@link #nextMatch(int)}, from the
+ * longest trigger to the shortest.
+ */
+final class TriggerMatcher {
+
+    static final int NO_MATCH = -1;
+
+    private static final int ROOT = 0;
+
+    // The children of node n are stored in mChildChars and mChildNodes from mFirstChild[n] to mFirstChild[n + 1], sorted
+    // by character
+    private final int[] mFirstChild;
+    private final char[] mChildChars;
+    private final int[] mChildNodes;
+
+    // Node reached by the longest proper suffix of the string leading to each node
+    private final int[] mFailure;
+
+    // Length of the string leading to each node
+    private final int[] mDepth;
+
+    // Closest node at or along the failure links of each node that ends a trigger, or NO_MATCH
+    private final int[] mMatch;
+
+    // First character of every trigger
+    private final CharClassifier mFirstChars;
+
+    TriggerMatcher(final @NonNull String[] triggers) {
+        // Build the trie
+        List<TreeMap<Character, Integer>> children = new ArrayList<>();
+        List<Integer> depths = new ArrayList<>();
+        List<Boolean> terminals = new ArrayList<>();
+        children.add(new TreeMap<>());
+        depths.add(0);
+        terminals.add(false);
+        StringBuilder firstChars = new StringBuilder();
+        for (String trigger : triggers) {
+            if (trigger == null || trigger.isEmpty()) {
+                continue;
+            }
+            firstChars.append(trigger.charAt(0));
+            int node = ROOT;
+            for (int i = 0; i < trigger.length(); i++) {
+                Integer child = children.get(node).get(trigger.charAt(i));
+                if (child == null) {
+                    child = children.size();
+                    children.get(node).put(trigger.charAt(i), child);
+                    children.add(new TreeMap<>());
+                    depths.add(i + 1);
+                    terminals.add(false);
+                }
+                node = child;
+            }
+            terminals.set(node, true);
+        }
+
+        // Flatten the children of each node into sorted arrays
+        final int numNodes = children.size();
+        mFirstChild = new int[numNodes + 1];
+        mChildChars = new char[numNodes - 1];
+        mChildNodes = new int[numNodes - 1];
+        mDepth = new int[numNodes];
+        int offset = 0;
+        for (int node = 0; node < numNodes; node++) {
+            mFirstChild[node] = offset;
+            mDepth[node] = depths.get(node);
+            for (Map.Entry<Character, Integer> entry : children.get(node).entrySet()) {
+                mChildChars[offset] = entry.getKey();
+                mChildNodes[offset] = entry.getValue();
+                offset++;
+            }
+        }
+        mFirstChild[numNodes] = offset;
+
+        // Compute the failure and match links breadth-first, so that the links of shallower nodes are always known
+        mFailure = new int[numNodes];
+        mMatch = new int[numNodes];
+        mMatch[ROOT] = NO_MATCH;
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        queue.add(ROOT);
+        while (!queue.isEmpty()) {
+            int node = queue.remove();
+            for (int i = mFirstChild[node]; i < mFirstChild[node + 1]; i++) {
+                int child = mChildNodes[i];
+                int failure = ROOT;
+                if (node != ROOT) {
+                    failure = mFailure[node];
+                    while (failure != ROOT && findChild(failure, mChildChars[i]) < 0) {
+                        failure = mFailure[failure];
+                    }
+                    int next = findChild(failure, mChildChars[i]);
+                    failure = next >= 0 ? next : ROOT;
+                }
+                mFailure[child] = failure;
+                mMatch[child] = terminals.get(child) ? child : mMatch[failure];
+                queue.add(child);
+            }
+        }
+
+        mFirstChars = new CharClassifier(firstChars);
+    }
+
+    /**
+     * @return true if there are no triggers to match
+     */
+    boolean isEmpty() {
+        return mFirstChars.isEmpty();
+    }
+
+    /**
+     * @return the state of the automaton before any characters have been fed to it
+     */
+    int getStartState() {
+        return ROOT;
+    }
+
+    /**
+     * @param state current state of the automaton
+     * @param c     next character in the text
+     * @return the state of the automaton after c
+     */
+    int nextState(int state, final char c) {
+        while (true) {
+            int child = findChild(state, c);
+            if (child >= 0) {
+                return child;
+            } else if (state == ROOT) {
+                return ROOT;
+            }
+            state = mFailure[state];
+        }
+    }
+
+    /**
+     * @param state current state of the automaton
+     * @return the longest trigger ending at the last character fed to the automaton, or {@link #NO_MATCH}
+     */
+    int firstMatch(final int state) {
+        return mMatch[state];
+    }
+
+    /**
+     * @param match a match returned by {@link #firstMatch(int)} or this method
+     * @return the next shorter trigger ending at the same character, or {@link #NO_MATCH}
+     */
+    int nextMatch(final int match) {
+        return mMatch[mFailure[match]];
+    }
+
+    /**
+     * @param match a match returned by {@link #firstMatch(int)} or {@link #nextMatch(int)}
+     * @return the length of the matched trigger
+     */
+    int getMatchLength(final int match) {
+        return mDepth[match];
+    }
+
+    /**
+     * Finds the longest trigger that starts at the given index in the text.
+     *
+     * @param text  the {@link CharSequence} to examine
+     * @param start index at which the trigger must start
+     * @param end   index at or before which the trigger must end
+     * @return the length of the longest such trigger, or 0 if there is none
+     */
+    int matchAt(final @NonNull CharSequence text, final int start, final int end) {
+        int node = ROOT;
+        int length = 0;
+        for (int i = start; i < end && i < text.length(); i++) {
+            node = findChild(node, text.charAt(i));
+            if (node < 0) {
+                break;
+            }
+            if (mMatch[node] == node) {
+                length = mDepth[node];
+            }
+        }
+        return length;
+    }
+
+    /**
+     * @param c character to test
+     * @return true if c is the first character of any trigger
+     */
+    boolean isFirstChar(final char c) {
+        return mFirstChars.contains(c);
+    }
+
+    private int findChild(final int node, final char c) {
+        int index = Arrays.binarySearch(mChildChars, mFirstChild[node], mFirstChild[node + 1], c);
+        return index >= 0 ? mChildNodes[index] : -1;
+    }
+}
@@ -0,0 +1,318 @@
+/*
+ * Copyright 2015 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package com.linkedin.android.spyglass.tokenization.impl;
+
+import android.text.Spanned;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.linkedin.android.spyglass.tokenization.QueryToken;
+import com.linkedin.android.spyglass.tokenization.interfaces.Tokenizer;
+
+/**
+ * Tokenizer that supports explicit triggers made up of more than one character, i.e. "@@" for teams, "+[" for tickets
+ * or "/" for commands. All of the triggers are compiled into a single Aho-Corasick automaton, so the text before the
+ * cursor is examined in one pass no matter how many triggers there are.
+ * <p>
+ * Otherwise, tokens are found the same way as by the {@link WordTokenizer}, using the same {@link WordTokenizerConfig}
+ * (except for {@link WordTokenizerConfig#EXPLICIT_CHARS}, which is only used if no triggers are given). A trigger must
+ * be at the start of a word, and may be followed by up to {@link WordTokenizerConfig#MAX_NUM_KEYWORDS} words. Where
+ * triggers overlap, the longest trigger at the start of a word is used (i.e. "@@john" is a team query, not a query for
+ * "@john"). The trigger that was typed is reported through {@link QueryToken#getExplicitTrigger()}.
+ * <p>
+ * Triggers should not contain any word-breaking characters.
+ */
+public class TriggerTokenizer implements Tokenizer {
+
+    // Results of scanning for triggers when there is no valid trigger
+    private static final int NO_TRIGGER = -1;
+    private static final int INVALID_TRIGGER = -2;
+
+    private final WordTokenizerConfig mConfig;
+    private final TriggerMatcher mMatcher;
+
+    // Used to find the bounds of the search (i.e. the current line and the mentions around the cursor)
+    private final WordTokenizer mWordTokenizer;
+
+    public TriggerTokenizer(final @NonNull String... triggers) {
+        this(new WordTokenizerConfig.Builder().build(), triggers);
+    }
+
+    public TriggerTokenizer(final @NonNull WordTokenizerConfig config, final @NonNull String... triggers) {
+        mConfig = config;
+        mMatcher = new TriggerMatcher(triggers.length > 0 ? triggers : splitChars(config.EXPLICIT_CHARS));
+        mWordTokenizer = new WordTokenizer(config);
+    }
+
+    // --------------------------------------------------
+    // Tokenizer Interface Implementation
+    // --------------------------------------------------
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int findTokenStart(final @NonNull Spanned text, final int cursor) {
+        int start = mWordTokenizer.getSearchStartIndex(text, cursor);
+
+        // If it is explicit, return the index of the trigger
+        int triggerStart = findTriggerBefore(text, cursor, start);
+        if (triggerStart >= 0) {
+            return triggerStart;
+        }
+
+        // For implicit tokens, we need to go back a certain number of words to find the start
+        // of the token (with the max number of words to go back defined in the config)
+        int i = cursor;
+        int maxNumKeywords = mConfig.MAX_NUM_KEYWORDS;
+
+        // Go back to the start of the word that the cursor is currently in
+        while (i > start && !isWordBreakingChar(text.charAt(i - 1))) {
+            i--;
+        }
+
+        // Cursor is at beginning of current word, go back MaxNumKeywords - 1 now
+        for (int j = 0; j < maxNumKeywords - 1; j++) {
+            // Decrement through only one word-breaking character, if it exists
+            if (i > start && isWordBreakingChar(text.charAt(i - 1))) {
+                i--;
+            }
+            // If there is more than one word-breaking space, break out now
+            if (i > start && isWordBreakingChar(text.charAt(i - 1))) {
+                break;
+            }
+            // Decrement until the next space
+            while (i > start && !isWordBreakingChar(text.charAt(i - 1))) {
+                i--;
+            }
+        }
+
+        // Ensures that text.char(i) is not a word-breaking char or the start of a trigger
+        while (i < cursor && (isWordBreakingChar(text.charAt(i)) || isExplicitChar(text.charAt(i)))) {
+            i++;
+        }
+
+        return i;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int findTokenEnd(final @NonNull Spanned text, final int cursor) {
+        int i = cursor;
+        int end = mWordTokenizer.getSearchEndIndex(text, cursor);
+
+        // Starting from the cursor, increment i until it reaches the first word-breaking char
+        while (i >= 0 && i < end) {
+            if (isWordBreakingChar(text.charAt(i))) {
+                return i;
+            }
+            i++;
+        }
+
+        return i;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isValidMention(final @NonNull Spanned text, final int start, final int end) {
+        return isWellFormedMention(text, start, end)
+                && mWordTokenizer.meetsTriggerRule(text, start, end, getExplicitTrigger(text, start, end));
+    }
+
+    /**
+     * Determines if the token between start and end follows the same rules for a mention as the {@link WordTokenizer},
+     * before any of the {@link WordTokenizerConfig#TRIGGER_RULES} are applied.
+     */
+    private boolean isWellFormedMention(final @NonNull Spanned text, final int start, final int end) {
+        // Null or empty string is not a valid mention
+        if (start < 0 || end > text.length() || start >= end) {
+            return false;
+        }
+
+        // Handle explicit mentions first, then implicit mentions
+        final int threshold = mConfig.THRESHOLD;
+        final int tokenLength = end - start;
+        final int triggerLength = mMatcher.matchAt(text, start, end);
+        boolean multipleWords = mWordTokenizer.containsWordBreakingChar(text, start, end);
+
+        // Note: The last trigger within the token must be at the start of a word (otherwise, it may be part of an email
+        // address or similar)
+        int lastTrigger = scanTriggers(text, start, end);
+        boolean containsTrigger = lastTrigger != NO_TRIGGER;
+
+        if (!multipleWords && containsTrigger) {
+
+            // If it is one word and has a trigger, the trigger must be at the start
+            if (lastTrigger != start) {
+                return false;
+            }
+
+            // Return true if string is just a trigger
+            if (tokenLength == triggerLength) {
+                return true;
+            }
+
+            // Otherwise, the character after the trigger must be a letter or digit, i.e. "+[d"
+            return Character.isLetterOrDigit(text.charAt(start + triggerLength));
+
+        } else if (tokenLength >= threshold) {
+
+            // Change behavior depending on if keywords is one or more words
+            if (!multipleWords) {
+                // One word, no triggers
+                return mWordTokenizer.onlyLettersOrDigits(text, threshold, start, end);
+            } else if (containsTrigger) {
+                // Multiple words, has a trigger
+                // Must start with the trigger, then a letter or digit
+                return lastTrigger >= 0
+                        && triggerLength > 0
+                        && start + triggerLength < end
+                        && Character.isLetterOrDigit(text.charAt(start + triggerLength));
+            } else {
+                // Multiple words, no triggers
+                // Either the first or last couple of characters must be letters/digits
+                boolean firstCharactersValid = mWordTokenizer.onlyLettersOrDigits(text, threshold, start, end);
+                boolean lastCharactersValid = mWordTokenizer.onlyLettersOrDigits(text, threshold, end - threshold, end);
+                return firstCharactersValid || lastCharactersValid;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Nullable
+    public String getExplicitTrigger(final @NonNull Spanned text, final int start, final int end) {
+        if (start < 0 || start >= end || end > text.length()) {
+            return null;
+        }
+        int triggerLength = mMatcher.matchAt(text, start, end);
+        return (triggerLength > 0) ? text.subSequence(start, start + triggerLength).toString() : null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @NonNull
+    public Spanned terminateToken(final @NonNull Spanned text) {
+        // Note: We do not need to modify the text to terminate it
+        return text;
+    }
+
+    /**
+     * Determines if the given character is the first character of any trigger.
+     *
+     * @param c character to test
+     * @return true if c may start a trigger
+     */
+    @Override
+    public boolean isExplicitChar(final char c) {
+        return mMatcher.isFirstChar(c);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isWordBreakingChar(final char c) {
+        return mWordTokenizer.isWordBreakingChar(c);
+    }
+
+    // --------------------------------------------------
+    // Private Helper Methods
+    // --------------------------------------------------
+
+    /**
+     * Finds the trigger that makes the token at the cursor explicit, if any. As with explicit characters in the
+     * {@link WordTokenizer}, the closest trigger before the cursor must be at the start of a word, and may be followed
+     * by no more than MAX_NUM_KEYWORDS words.
+     *
+     * @param text   the {@link Spanned} to examine
+     * @param cursor position of the cursor in text
+     * @param start  the furthest in front of the cursor to search (see {@link WordTokenizer#getSearchStartIndex})
+     * @return the index of the trigger, or a negative value if the token at the cursor is not explicit
+     */
+    private int findTriggerBefore(final @NonNull Spanned text, final int cursor, final int start) {
+        if (mMatcher.isEmpty() || cursor < 0 || cursor > text.length()) {
+            return NO_TRIGGER;
+        }
+
+        // Go back through the last MaxNumKeywords words
+        int windowStart = cursor;
+        int numWordBreakingCharsSeen = 0;
+        while (windowStart > start) {
+            if (isWordBreakingChar(text.charAt(windowStart - 1))
+                    && ++numWordBreakingCharsSeen == mConfig.MAX_NUM_KEYWORDS) {
+                break;
+            }
+            windowStart--;
+        }
+
+        return scanTriggers(text, windowStart, cursor);
+    }
+
+    /**
+     * Feeds the text between start and end through the automaton to find the last trigger within it.
+     *
+     * @return the index of the last trigger if it is at the start of a word, {@link #INVALID_TRIGGER} if it is not, or
+     * {@link #NO_TRIGGER} if the text does not contain any triggers
+     */
+    private int scanTriggers(final @NonNull CharSequence text, final int start, final int end) {
+        int triggerStart = NO_TRIGGER;
+        int triggerEnd = NO_TRIGGER;
+        int state = mMatcher.getStartState();
+        for (int i = start; i < end; i++) {
+            state = mMatcher.nextState(state, text.charAt(i));
+            for (int match = mMatcher.firstMatch(state);
+                 match != TriggerMatcher.NO_MATCH;
+                 match = mMatcher.nextMatch(match)) {
+                int matchStart = i + 1 - mMatcher.getMatchLength(match);
+                if (matchStart == triggerStart) {
+                    // A longer trigger at the same position
+                    triggerEnd = Math.max(triggerEnd, i + 1);
+                } else if (matchStart > triggerStart && matchStart < triggerEnd) {
+                    // Part of the current trigger (i.e. the second "@" in "@@")
+                    continue;
+                } else if (matchStart == 0 || isWordBreakingChar(text.charAt(matchStart - 1))) {
+                    triggerStart = matchStart;
+                    triggerEnd = i + 1;
+                } else {
+                    // The closest trigger is not at the start of a word
+                    triggerStart = INVALID_TRIGGER;
+                    triggerEnd = INVALID_TRIGGER;
+                }
+            }
+        }
+        return triggerStart;
+    }
+
+    @NonNull
+    private static String[] splitChars(final @NonNull String chars) {
+        String[] triggers = new String[chars.length()];
+        for (int i = 0; i < chars.length(); i++) {
+            triggers[i] = String.valueOf(chars.charAt(i));
+        }
+        return triggers;
+    }
+}
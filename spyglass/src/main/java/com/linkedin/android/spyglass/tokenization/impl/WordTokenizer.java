@@ -14,30 +14,70 @@
 
 package com.linkedin.android.spyglass.tokenization.impl;
 
-import android.text.SpannableStringBuilder;
 import android.text.Spanned;
-import android.text.TextUtils;
 import android.util.Log;
 import android.widget.EditText;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import com.linkedin.android.spyglass.mentions.MentionSpan;
-import com.linkedin.android.spyglass.tokenization.interfaces.Tokenizer;
+import com.linkedin.android.spyglass.mentions.MentionsEditable;
+import com.linkedin.android.spyglass.tokenization.CandidateToken;
+import com.linkedin.android.spyglass.tokenization.interfaces.IncrementalTokenizer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * Tokenizer class used to determine the keywords to be used when querying for mention suggestions.
+ * <p>
+ * When tokenizing a {@link MentionsEditable}, the token at the cursor is kept as state. Changes passed to
+ * {@link #onTextChanged(Spanned, int, int, int)} that only add or remove letters within the word before the cursor
+ * (i.e. typing or deleting at the end of a token) update that state in time proportional to the change. Any other
+ * change causes the token to be found again by scanning the text.
  */
-public class WordTokenizer implements Tokenizer {
+public class WordTokenizer implements IncrementalTokenizer {
+
+    // Line separator tracked by the line table in MentionsEditable
+    private static final String LINE_BREAK = "\n";
 
     private final WordTokenizerConfig mConfig;
 
+    // Characters that make up the line separator, which may end a word even if they are not word-breaking characters
+    private final CharClassifier mLineSeparatorChars;
+
+    // One-character string for each of the explicit characters in the config, so that explicit triggers can be
+    // reported without allocating a new string on every keystroke
+    private final String[] mExplicitTriggers;
+
+    // State of the token at the cursor (only kept for a MentionsEditable). The state describes the text as of
+    // mTokenChangeCount (see MentionsEditable#getChangeCount()).
+    @Nullable
+    private MentionsEditable mTokenText;
+    private int mTokenChangeCount;
+    private int mTokenMaxNumKeywords;
+    private int mTokenCursor = -1;
+    private int mTokenStart;
+    private int mTokenEnd;
+    private char mTokenExplicitChar;
+
+    // Start of the word immediately before the cursor. Every character from here to the cursor is a plain character
+    // (see isPlainChar()), and no mention starts or ends between here and the cursor.
+    private int mTokenWordStart;
+
     public WordTokenizer() {
         this(new WordTokenizerConfig.Builder().build());
     }
 
     public WordTokenizer(final @NonNull WordTokenizerConfig config) {
         mConfig = config;
+        mLineSeparatorChars = new CharClassifier(config.LINE_SEPARATOR);
+        mExplicitTriggers = new String[config.EXPLICIT_CHARS.length()];
+        for (int i = 0; i < mExplicitTriggers.length; i++) {
+            mExplicitTriggers[i] = String.valueOf(config.EXPLICIT_CHARS.charAt(i));
+        }
     }
 
     // --------------------------------------------------
@@ -49,62 +89,10 @@ public class WordTokenizer implements Tokenizer {
      */
     @Override
     public int findTokenStart(final @NonNull Spanned text, final int cursor) {
-        int start = getSearchStartIndex(text, cursor);
-        int i = cursor;
-
-        // If it is explicit, return the index of the first explicit character
-        if (isExplicit(text, cursor)) {
-            i--;
-            while (i >= start) {
-                char currentChar = text.charAt(i);
-                if (isExplicitChar(currentChar)) {
-                    if (i == 0 || isWordBreakingChar(text.charAt(i - 1))) {
-                        return i;
-                    }
-                }
-                i--;
-            }
-            // Could not find explicit character before the cursor
-            // Note: This case should never happen (means that isExplicit
-            // returned true when it should have been false)
-            return -1;
-
-        } else {
-
-            // For implicit tokens, we need to go back a certain number of words to find the start
-            // of the token (with the max number of words to go back defined in the config)
-            int maxNumKeywords = mConfig.MAX_NUM_KEYWORDS;
-
-            // Go back to the start of the word that the cursor is currently in
-            while (i > start && !isWordBreakingChar(text.charAt(i - 1))) {
-                i--;
-            }
-
-            // Cursor is at beginning of current word, go back MaxNumKeywords - 1 now
-            for (int j = 0; j < maxNumKeywords - 1; j++) {
-                // Decrement through only one word-breaking character, if it exists
-                if (i > start && isWordBreakingChar(text.charAt(i - 1))) {
-                    i--;
-                }
-                // If there is more than one word-breaking space, break out now
-                // Do not consider queries with words separated by more than one word-breaking char
-                if (i > start && isWordBreakingChar(text.charAt(i - 1))) {
-                    break;
-                }
-                // Decrement until the next space
-                while (i > start && !isWordBreakingChar(text.charAt(i - 1))) {
-                    i--;
-                }
-            }
-
-            // Ensures that text.char(i) is not a word-breaking or explicit char (i.e. cursor must have a
-            // word-breaking char in front of it and a non-word-breaking char behind it)
-            while (i < cursor && (isWordBreakingChar(text.charAt(i)) || isExplicitChar(text.charAt(i)))) {
-                i++;
-            }
-
-            return i;
+        if (hasTokenState(text, cursor)) {
+            return mTokenStart;
         }
+        return computeTokenStart(text, cursor);
     }
 
     /**
@@ -112,42 +100,41 @@ public class WordTokenizer implements Tokenizer {
      */
     @Override
     public int findTokenEnd(final @NonNull Spanned text, final int cursor) {
-        int i = cursor;
-        int end = getSearchEndIndex(text, cursor);
-
-        // Starting from the cursor, increment i until it reaches the first word-breaking char
-        while (i >= 0 && i < end) {
-            if (isWordBreakingChar(text.charAt(i))) {
-                return i;
-            } else {
-                i++;
-            }
+        if (hasTokenState(text, cursor)) {
+            return mTokenEnd;
         }
-
-        return i;
+        return computeTokenEnd(text, cursor);
     }
 
     /**
      * {@inheritDoc}
      */
     public boolean isValidMention(final @NonNull Spanned text, final int start, final int end) {
-        // Get the token
-        CharSequence token = text.subSequence(start, end);
+        return isWellFormedMention(text, start, end)
+                && meetsTriggerRule(text, start, end, getExplicitTrigger(text, start, end));
+    }
 
+    /**
+     * Determines if the token between start and end follows the default rules for a mention, before any of the
+     * {@link WordTokenizerConfig#TRIGGER_RULES} are applied.
+     */
+    private boolean isWellFormedMention(final @NonNull Spanned text, final int start, final int end) {
         // Null or empty string is not a valid mention
-        if (TextUtils.isEmpty(token)) {
+        // Note: The token is examined in place within text, without copying it out
+        if (start < 0 || end > text.length() || start >= end) {
             return false;
         }
 
         // Handle explicit mentions first, then implicit mentions
         final int threshold = mConfig.THRESHOLD;
-        boolean multipleWords = containsWordBreakingChar(token);
-        boolean containsExplicitChar = containsExplicitChar(token);
+        final int tokenLength = end - start;
+        boolean multipleWords = containsWordBreakingChar(text, start, end);
+        boolean containsExplicitChar = containsExplicitChar(text, start, end);
 
         if (!multipleWords && containsExplicitChar) {
 
             // If it is one word and has an explicit char, the explicit char must be the first char
-            if (!isExplicitChar(token.charAt(0))) {
+            if (!isExplicitChar(text.charAt(start))) {
                 return false;
             }
 
@@ -158,32 +145,32 @@ public class WordTokenizer implements Tokenizer {
             }
 
             // Return true if string is just an explicit character
-            if (token.length() == 1) {
+            if (tokenLength == 1) {
                 return true;
             }
 
             // If input has length greater than one, the second character must be a letter or digit
             // Return true if and only if second character is a letter or digit, i.e. "@d"
-            return Character.isLetterOrDigit(token.charAt(1));
+            return Character.isLetterOrDigit(text.charAt(start + 1));
 
-        } else if (token.length() >= threshold) {
+        } else if (tokenLength >= threshold) {
 
             // Change behavior depending on if keywords is one or more words
             if (!multipleWords) {
                 // One word, no explicit characters
                 // input is only one word, i.e. "u41"
-                return onlyLettersOrDigits(token, threshold, 0);
+                return onlyLettersOrDigits(text, threshold, start, end);
             } else if (containsExplicitChar) {
                 // Multiple words, has explicit character
                 // Must have a space, the explicit character, then a letter or digit
                 return hasWordBreakingCharBeforeExplicitChar(text, end)
-                        && isExplicitChar(token.charAt(0))
-                        && Character.isLetterOrDigit(token.charAt(1));
+                        && isExplicitChar(text.charAt(start))
+                        && Character.isLetterOrDigit(text.charAt(start + 1));
             } else {
                 // Multiple words, no explicit character
                 // Either the first or last couple of characters must be letters/digits
-                boolean firstCharactersValid = onlyLettersOrDigits(token, threshold, 0);
-                boolean lastCharactersValid = onlyLettersOrDigits(token, threshold, token.length() - threshold);
+                boolean firstCharactersValid = onlyLettersOrDigits(text, threshold, start, end);
+                boolean lastCharactersValid = onlyLettersOrDigits(text, threshold, end - threshold, end);
                 return firstCharactersValid || lastCharactersValid;
             }
         }
@@ -191,6 +178,90 @@ public class WordTokenizer implements Tokenizer {
         return false;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The line separators and mentions within the text are located once, and then tracked as the cursor moves forward,
+     * so the whole text is tokenized in a single pass. Note that the bounds of the search are found directly instead of
+     * through {@link #getSearchStartIndex(Spanned, int)} and {@link #getSearchEndIndex(Spanned, int)}, so subclasses
+     * overriding those methods should override this method as well.
+     */
+    @Override
+    @NonNull
+    public List<CandidateToken> findAllTokens(final @NonNull Spanned text) {
+        final int length = text.length();
+        final int separatorLength = mConfig.LINE_SEPARATOR.length();
+        final int[] separators = findLineSeparators(text);
+
+        // Sort the bounds of the mentions (they do not need to be paired up to find the bounds of the search)
+        MentionSpan[] spans = text.getSpans(0, length, MentionSpan.class);
+        if (spans == null) {
+            spans = new MentionSpan[0];
+        }
+        int[] mentionStarts = new int[spans.length];
+        int[] mentionEnds = new int[spans.length];
+        for (int i = 0; i < spans.length; i++) {
+            mentionStarts[i] = text.getSpanStart(spans[i]);
+            mentionEnds[i] = text.getSpanEnd(spans[i]);
+        }
+        Arrays.sort(mentionStarts);
+        Arrays.sort(mentionEnds);
+
+        // Index of the first separator or mention bound that is not yet behind the cursor, in each array
+        int nextLineStart = 0;
+        int nextLineEnd = 0;
+        int nextMentionStart = 0;
+        int nextMentionEnd = 0;
+
+        List<CandidateToken> tokens = new ArrayList<>();
+        int cursor = 0;
+        while (cursor <= length) {
+            // Find the same bounds as getSearchStartIndex() and getSearchEndIndex() would for the cursor
+            while (nextLineStart < separators.length && separators[nextLineStart] + separatorLength <= cursor) {
+                nextLineStart++;
+            }
+            while (nextLineEnd < separators.length && separators[nextLineEnd] < cursor) {
+                nextLineEnd++;
+            }
+            while (nextMentionEnd < mentionEnds.length && mentionEnds[nextMentionEnd] <= cursor) {
+                nextMentionEnd++;
+            }
+            while (nextMentionStart < mentionStarts.length && mentionStarts[nextMentionStart] < cursor) {
+                nextMentionStart++;
+            }
+            int lineStart = (nextLineStart > 0) ? separators[nextLineStart - 1] + separatorLength : 0;
+            int lineEnd = (separatorLength == 0) ? cursor
+                    : (nextLineEnd < separators.length) ? separators[nextLineEnd] : length;
+            int searchStart = (nextMentionEnd > 0) ? Math.max(lineStart, mentionEnds[nextMentionEnd - 1]) : lineStart;
+            int searchEnd = (nextMentionStart < mentionStarts.length)
+                    ? Math.min(lineEnd, mentionStarts[nextMentionStart]) : lineEnd;
+
+            boolean isExplicit = scanExplicitChar(text, cursor, searchStart) != (char) 0;
+            int start = scanTokenStart(text, cursor, searchStart, isExplicit);
+            int end = scanTokenEnd(text, cursor, searchEnd);
+            if (isValidMention(text, start, end)) {
+                tokens.add(new CandidateToken(start, end, getExplicitTrigger(text, start, end)));
+            }
+            cursor += end - start + 1;
+        }
+        return tokens;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The trigger is shared between calls instead of being copied out of the text.
+     */
+    @Override
+    @Nullable
+    public String getExplicitTrigger(final @NonNull Spanned text, final int start, final int end) {
+        if (start < 0 || start >= end || end > text.length() || !isExplicitChar(text.charAt(start))) {
+            return null;
+        }
+        int index = mConfig.EXPLICIT_CHARS.indexOf(text.charAt(start));
+        return (index >= 0) ? mExplicitTriggers[index] : String.valueOf(text.charAt(start));
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -205,28 +276,60 @@ public class WordTokenizer implements Tokenizer {
      * {@inheritDoc}
      */
     public boolean isExplicitChar(final char c) {
-        final String explicitChars = mConfig.EXPLICIT_CHARS;
-        for (int i = 0; i < explicitChars.length(); i++) {
-            char explicitChar = explicitChars.charAt(i);
-            if (c == explicitChar) {
-                return true;
-            }
-        }
-        return false;
+        return mConfig.EXPLICIT_CHAR_CLASSIFIER.contains(c);
     }
 
     /**
      * {@inheritDoc}
      */
     public boolean isWordBreakingChar(final char c) {
-        final String wordBreakChars = mConfig.WORD_BREAK_CHARS;
-        for (int i = 0; i < wordBreakChars.length(); i++) {
-            char wordBreakChar = wordBreakChars.charAt(i);
-            if (c == wordBreakChar) {
-                return true;
-            }
+        return mConfig.WORD_BREAK_CHAR_CLASSIFIER.contains(c);
+    }
+
+    // --------------------------------------------------
+    // IncrementalTokenizer Interface Implementation
+    // --------------------------------------------------
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onTextChanged(final @NonNull Spanned text, final int start, final int before, final int count) {
+        if (!(text instanceof MentionsEditable)) {
+            return;
+        }
+        MentionsEditable editable = (MentionsEditable) text;
+        int changeCount = editable.getChangeCount();
+        int end = start + count;
+
+        // The token can only be updated in place if this is the only change since the state was recorded, the change
+        // ended at the cursor, and it only added or removed plain characters within the word before the cursor. Such
+        // a change cannot move the start of the token, the explicit character, or the start of the word.
+        boolean canUpdate = text == mTokenText
+                && mTokenChangeCount + 1 == changeCount
+                && mTokenMaxNumKeywords == mConfig.MAX_NUM_KEYWORDS
+                && mTokenWordStart < mTokenCursor
+                && start + before == mTokenCursor
+                && start >= mTokenWordStart
+                && (start > mTokenWordStart || count > 0)
+                && onlyPlainChars(text, start, end);
+
+        // The new characters must not contain any mentions (i.e. pasted from another MentionsEditable)
+        if (canUpdate && count > 0) {
+            int mentionStart = editable.getClosestMentionStartAfter(start);
+            canUpdate = mentionStart < 0 || mentionStart >= end;
+        }
+
+        // Note: Even if the state cannot be updated, the change has now been applied to the text, so a new state may be
+        // recorded for it (see hasTokenState())
+        mTokenText = editable;
+        mTokenChangeCount = changeCount;
+        if (canUpdate) {
+            mTokenEnd += count - before;
+            mTokenCursor = end;
+        } else {
+            mTokenCursor = -1;
         }
-        return false;
     }
 
     // --------------------------------------------------
@@ -255,11 +358,29 @@ public class WordTokenizer implements Tokenizer {
      * @return the current explicit character or the null character if not currently explicit
      */
     public char getExplicitChar(final @NonNull CharSequence text, final int cursor) {
+        if (text instanceof Spanned && hasTokenState((Spanned) text, cursor)) {
+            return mTokenExplicitChar;
+        }
+        return computeExplicitChar(text, cursor);
+    }
+
+    /**
+     * Finds the explicit character by scanning the text (see {@link #getExplicitChar(CharSequence, int)}).
+     */
+    private char computeExplicitChar(final @NonNull CharSequence text, final int cursor) {
         if (cursor < 0 || cursor > text.length()) {
             return (char) 0;
         }
-        SpannableStringBuilder ssb = new SpannableStringBuilder(text);
-        int start = getSearchStartIndex(ssb, cursor);
+        // Plain character sequences cannot contain mentions, so only the start of the line bounds the search
+        int start = (text instanceof Spanned)
+                ? getSearchStartIndex((Spanned) text, cursor) : findLineStart(text, cursor);
+        return scanExplicitChar(text, cursor, start);
+    }
+
+    /**
+     * Finds the explicit character before the cursor, searching no further back than start.
+     */
+    private char scanExplicitChar(final @NonNull CharSequence text, final int cursor, final int start) {
         int i = cursor - 1;
         int numWordBreakingCharsSeen = 0;
         while (i >= start) {
@@ -292,12 +413,21 @@ public class WordTokenizer implements Tokenizer {
      * @return true if input contains an explicit character
      */
     public boolean containsExplicitChar(final @NonNull CharSequence input) {
-        if (!TextUtils.isEmpty(input)) {
-            for (int i = 0; i < input.length(); i++) {
-                char c = input.charAt(i);
-                if (isExplicitChar(c)) {
-                    return true;
-                }
+        return containsExplicitChar(input, 0, input.length());
+    }
+
+    /**
+     * Returns true if the given range of the input string contains an explicit character.
+     *
+     * @param input a {@link CharSequence} to test
+     * @param start index of the first character in the range
+     * @param end   index after the last character in the range
+     * @return true if the range contains an explicit character
+     */
+    public boolean containsExplicitChar(final @NonNull CharSequence input, final int start, final int end) {
+        for (int i = Math.max(start, 0); i < end && i < input.length(); i++) {
+            if (isExplicitChar(input.charAt(i))) {
+                return true;
             }
         }
         return false;
@@ -310,12 +440,21 @@ public class WordTokenizer implements Tokenizer {
      * @return true if input contains a word-breaking character
      */
     public boolean containsWordBreakingChar(final @NonNull CharSequence input) {
-        if (!TextUtils.isEmpty(input)) {
-            for (int i = 0; i < input.length(); i++) {
-                char c = input.charAt(i);
-                if (isWordBreakingChar(c)) {
-                    return true;
-                }
+        return containsWordBreakingChar(input, 0, input.length());
+    }
+
+    /**
+     * Returns true if the given range of the input string contains a word-breaking character.
+     *
+     * @param input a {@link CharSequence} to test
+     * @param start index of the first character in the range
+     * @param end   index after the last character in the range
+     * @return true if the range contains a word-breaking character
+     */
+    public boolean containsWordBreakingChar(final @NonNull CharSequence input, final int start, final int end) {
+        for (int i = Math.max(start, 0); i < end && i < input.length(); i++) {
+            if (isWordBreakingChar(input.charAt(i))) {
+                return true;
             }
         }
         return false;
@@ -331,9 +470,25 @@ public class WordTokenizer implements Tokenizer {
      * @return true if the first "numCharsToCheck" at the starting index are either letters or digits
      */
     public boolean onlyLettersOrDigits(final @NonNull CharSequence input, final int numCharsToCheck, final int start) {
+        return onlyLettersOrDigits(input, numCharsToCheck, start, input.length());
+    }
+
+    /**
+     * Same as {@link #onlyLettersOrDigits(CharSequence, int, int)}, but treats end as the end of the input string so
+     * that a token can be examined in place within the full text.
+     *
+     * @param input           a {@link CharSequence} to test
+     * @param numCharsToCheck number of characters to examine at starting position
+     * @param start           starting position within the input string
+     * @param end             index after the last character that may be examined
+     * @return true if the first "numCharsToCheck" at the starting index are either letters or digits
+     */
+    public boolean onlyLettersOrDigits(final @NonNull CharSequence input, final int numCharsToCheck,
+                                       final int start, final int end) {
+        final int limit = Math.min(end, input.length());
 
         // Starting position must be within the input string
-        if (start < 0 || start > input.length()) {
+        if (start < 0 || start > limit) {
             return false;
         }
 
@@ -341,7 +496,7 @@ public class WordTokenizer implements Tokenizer {
         for (int i = 0; i < numCharsToCheck; i++) {
             int positionToCheck = start + i;
             // Return false if we would throw an Out-of-Bounds exception
-            if (positionToCheck >= input.length()) {
+            if (positionToCheck >= limit) {
                 return false;
             }
             // Return false early if current character is not a letter or digit
@@ -359,6 +514,46 @@ public class WordTokenizer implements Tokenizer {
     // Protected Helper Methods
     // --------------------------------------------------
 
+    /**
+     * Determines if a mention meets the rule that the config sets for its trigger (see
+     * {@link WordTokenizerConfig#TRIGGER_RULES}), or for implicit mentions if it has no trigger (see
+     * {@link WordTokenizerConfig#IMPLICIT_RULE}). Implicit mentions must be enabled in the config.
+     *
+     * @param text    the {@link Spanned} containing the mention
+     * @param start   index of the first character in the mention
+     * @param end     index after the last character in the mention
+     * @param trigger the explicit trigger at the start of the mention, or null if it is implicit
+     * @return true if the mention meets the rule
+     */
+    protected boolean meetsTriggerRule(final @NonNull Spanned text, final int start, final int end,
+                                       final @Nullable String trigger) {
+        WordTokenizerConfig.TriggerRule rule;
+        if (trigger == null) {
+            if (!mConfig.IMPLICIT_MENTIONS_ENABLED) {
+                return false;
+            }
+            rule = mConfig.IMPLICIT_RULE;
+        } else {
+            rule = mConfig.getTriggerRule(trigger);
+        }
+        if (rule == null) {
+            return true;
+        }
+
+        // Ensure that the query after the trigger is long enough, and does not contain too many keywords
+        int queryStart = (trigger != null) ? start + trigger.length() : start;
+        if (end - queryStart < rule.MIN_QUERY_LENGTH) {
+            return false;
+        }
+        int numKeywords = 1;
+        for (int i = queryStart; i < end; i++) {
+            if (isWordBreakingChar(text.charAt(i)) && ++numKeywords > rule.MAX_NUM_KEYWORDS) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * Returns the index of the end of the last span before the cursor or
      * the start of the current line if there are no spans before the cursor.
@@ -372,25 +567,27 @@ public class WordTokenizer implements Tokenizer {
             cursor = 0;
         }
 
-        // Get index of the end of the last span before the cursor (or 0 if does not exist)
-        MentionSpan[] spans = text.getSpans(0, text.length(), MentionSpan.class);
-        int closestToCursor = 0;
-        for (MentionSpan span : spans) {
-            int end = text.getSpanEnd(span);
-            if (end > closestToCursor && end <= cursor) {
-                closestToCursor = end;
-            }
-        }
-
         // Get the index of the start of the line
-        String textString = text.toString().substring(0, cursor);
-        int lineStartIndex = 0;
-        if (textString.contains(mConfig.LINE_SEPARATOR)) {
-            lineStartIndex = textString.lastIndexOf(mConfig.LINE_SEPARATOR) + 1;
+        int lineStartIndex = findLineStart(text, cursor);
+
+        // Get index of the end of the last span before the cursor (or the start of the line if does not exist)
+        // Note: Only spans on the current line can end closer to the cursor than the start of the line
+        int closestToCursor = lineStartIndex;
+        if (text instanceof MentionsEditable) {
+            // Use the sorted index of mentions instead of examining every span on the line
+            closestToCursor = Math.max(lineStartIndex, ((MentionsEditable) text).getClosestMentionEndBefore(cursor));
+        } else {
+            MentionSpan[] spans = text.getSpans(lineStartIndex, cursor, MentionSpan.class);
+            for (MentionSpan span : spans) {
+                int end = text.getSpanEnd(span);
+                if (end > closestToCursor && end <= cursor) {
+                    closestToCursor = end;
+                }
+            }
         }
 
         // Return whichever is closer before to the cursor
-        return Math.max(closestToCursor, lineStartIndex);
+        return closestToCursor;
     }
 
     /**
@@ -406,25 +603,86 @@ public class WordTokenizer implements Tokenizer {
             cursor = 0;
         }
 
-        // Get index of the start of the first span after the cursor (or text.length() if does not exist)
-        MentionSpan[] spans = text.getSpans(0, text.length(), MentionSpan.class);
-        int closestAfterCursor = text.length();
-        for (MentionSpan span : spans) {
-            int start = text.getSpanStart(span);
-            if (start < closestAfterCursor && start >= cursor) {
-                closestAfterCursor = start;
+        // Get the index of the end of the line
+        int lineEndIndex = findLineEnd(text, cursor);
+
+        // Get index of the start of the first span after the cursor (or the end of the line if does not exist)
+        // Note: Only spans on the current line can start closer to the cursor than the end of the line
+        int closestAfterCursor = lineEndIndex;
+        if (text instanceof MentionsEditable) {
+            // Use the sorted index of mentions instead of examining every span on the line
+            int mentionStart = ((MentionsEditable) text).getClosestMentionStartAfter(cursor);
+            if (mentionStart >= 0) {
+                closestAfterCursor = Math.min(lineEndIndex, mentionStart);
+            }
+        } else {
+            MentionSpan[] spans = text.getSpans(cursor, lineEndIndex, MentionSpan.class);
+            for (MentionSpan span : spans) {
+                int start = text.getSpanStart(span);
+                if (start < closestAfterCursor && start >= cursor) {
+                    closestAfterCursor = start;
+                }
             }
         }
 
-        // Get the index of the end of the line
-        String textString = text.toString().substring(cursor, text.length());
-        int lineEndIndex = text.length();
-        if (textString.contains(mConfig.LINE_SEPARATOR)) {
-            lineEndIndex = cursor + textString.indexOf(mConfig.LINE_SEPARATOR);
+        // Return whichever is closest after the cursor
+        return closestAfterCursor;
+    }
+
+    /**
+     * Returns the index just after the last line separator before the cursor, or 0 if there is no line separator
+     * before the cursor. A {@link MentionsEditable} answers this from its table of line breaks, other text is scanned
+     * in place, without copying it.
+     *
+     * @param text   the {@link CharSequence} to examine
+     * @param cursor position of the cursor in text
+     * @return the index of the start of the line containing the cursor
+     */
+    protected int findLineStart(final @NonNull CharSequence text, final int cursor) {
+        final String separator = mConfig.LINE_SEPARATOR;
+        if (text instanceof MentionsEditable && LINE_BREAK.equals(separator)) {
+            // Use the table of line breaks maintained by the text
+            return ((MentionsEditable) text).getLineStart(cursor);
+        }
+        final int separatorLength = separator.length();
+        if (separatorLength == 0) {
+            return 0;
         }
+        // Note: A separator must end at or before the cursor to be considered on a previous line
+        for (int i = cursor - separatorLength; i >= 0; i--) {
+            if (regionMatches(text, i, separator)) {
+                return i + separatorLength;
+            }
+        }
+        return 0;
+    }
 
-        // Return whichever is closest after the cursor
-        return Math.min(closestAfterCursor, lineEndIndex);
+    /**
+     * Returns the index of the first line separator at or after the cursor, or the length of the text if there is no
+     * line separator after the cursor. A {@link MentionsEditable} answers this from its table of line breaks, other
+     * text is scanned in place, without copying it.
+     *
+     * @param text   the {@link CharSequence} to examine
+     * @param cursor position of the cursor in text
+     * @return the index of the end of the line containing the cursor
+     */
+    protected int findLineEnd(final @NonNull CharSequence text, final int cursor) {
+        final String separator = mConfig.LINE_SEPARATOR;
+        if (text instanceof MentionsEditable && LINE_BREAK.equals(separator)) {
+            // Use the table of line breaks maintained by the text
+            return ((MentionsEditable) text).getLineEnd(cursor);
+        }
+        final int separatorLength = separator.length();
+        final int length = text.length();
+        if (separatorLength == 0) {
+            return cursor;
+        }
+        for (int i = cursor; i + separatorLength <= length; i++) {
+            if (regionMatches(text, i, separator)) {
+                return i;
+            }
+        }
+        return length;
     }
 
     /**
@@ -440,18 +698,219 @@ public class WordTokenizer implements Tokenizer {
      * @return true if there is a space before the explicit character, false otherwise
      */
     protected boolean hasWordBreakingCharBeforeExplicitChar(final @NonNull Spanned text, final int cursor) {
-        CharSequence beforeCursor = text.subSequence(0, cursor);
         // Get the explicit character closest before the cursor and make sure it
         // has a word-breaking character in front of it
-        int i = cursor - 1;
-        while (i >= 0 && i < beforeCursor.length()) {
-            char c = beforeCursor.charAt(i);
+        int i = Math.min(cursor, text.length()) - 1;
+        while (i >= 0) {
+            char c = text.charAt(i);
             if (isExplicitChar(c)) {
-                return i == 0 || isWordBreakingChar(beforeCursor.charAt(i - 1));
+                return i == 0 || isWordBreakingChar(text.charAt(i - 1));
             }
             i--;
         }
         return false;
     }
 
+    // --------------------------------------------------
+    // Private Helper Methods
+    // --------------------------------------------------
+
+    /**
+     * Ensures that the state of the token describes the token at the given cursor, recording it if possible.
+     *
+     * @return true if the state of the token may be used to answer queries about the cursor within text
+     */
+    private boolean hasTokenState(final @NonNull Spanned text, final int cursor) {
+        if (!(text instanceof MentionsEditable) || cursor < 0 || cursor > text.length()) {
+            return false;
+        }
+        MentionsEditable editable = (MentionsEditable) text;
+        boolean isCurrent = text == mTokenText
+                && mTokenChangeCount == editable.getChangeCount()
+                && mTokenMaxNumKeywords == mConfig.MAX_NUM_KEYWORDS;
+        if (isCurrent && mTokenCursor == cursor) {
+            return true;
+        }
+
+        // While the text is being replaced, it may not be known whether the change has been applied yet. The text is
+        // only known to be up to date if the change has been passed to onTextChanged().
+        if (editable.isReplacing() && !isCurrent) {
+            return false;
+        }
+
+        // Record the state of the token at the cursor
+        int searchStart = getSearchStartIndex(text, cursor);
+        int wordStart = cursor;
+        while (wordStart > searchStart && isPlainChar(text.charAt(wordStart - 1))) {
+            wordStart--;
+        }
+        // If the cursor is within a mention, the word may not extend back to the start of that mention, so that the
+        // mention continues to start before the cursor after any change within the word
+        int mentionStart = editable.getClosestMentionStartAfter(wordStart);
+        while (mentionStart >= 0 && mentionStart < cursor) {
+            wordStart = mentionStart + 1;
+            mentionStart = editable.getClosestMentionStartAfter(wordStart);
+        }
+        mTokenText = editable;
+        mTokenChangeCount = editable.getChangeCount();
+        mTokenMaxNumKeywords = mConfig.MAX_NUM_KEYWORDS;
+        mTokenExplicitChar = computeExplicitChar(text, cursor);
+        mTokenStart = computeTokenStart(text, cursor);
+        mTokenEnd = computeTokenEnd(text, cursor);
+        mTokenWordStart = wordStart;
+        mTokenCursor = cursor;
+        return true;
+    }
+
+    /**
+     * Plain characters are those that cannot end a word or a line, or start an explicit mention. Adding or removing
+     * them within a word does not change how the text before the word is tokenized.
+     */
+    private boolean isPlainChar(final char c) {
+        return !isWordBreakingChar(c) && !isExplicitChar(c) && !mLineSeparatorChars.contains(c);
+    }
+
+    private boolean onlyPlainChars(final @NonNull CharSequence text, final int start, final int end) {
+        for (int i = start; i < end; i++) {
+            if (!isPlainChar(text.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds the start of the token at the cursor by scanning the text (see {@link #findTokenStart(Spanned, int)}).
+     */
+    private int computeTokenStart(final @NonNull Spanned text, final int cursor) {
+        boolean isExplicit = computeExplicitChar(text, cursor) != (char) 0;
+        return scanTokenStart(text, cursor, getSearchStartIndex(text, cursor), isExplicit);
+    }
+
+    /**
+     * Finds the start of the token at the cursor, searching no further back than start.
+     */
+    private int scanTokenStart(final @NonNull Spanned text, final int cursor, final int start,
+                               final boolean isExplicit) {
+        int i = cursor;
+
+        // If it is explicit, return the index of the first explicit character
+        if (isExplicit) {
+            i--;
+            while (i >= start) {
+                char currentChar = text.charAt(i);
+                if (isExplicitChar(currentChar)) {
+                    if (i == 0 || isWordBreakingChar(text.charAt(i - 1))) {
+                        return i;
+                    }
+                }
+                i--;
+            }
+            // Could not find explicit character before the cursor
+            // Note: This case should never happen (means that isExplicit
+            // returned true when it should have been false)
+            return -1;
+
+        } else {
+
+            // For implicit tokens, we need to go back a certain number of words to find the start
+            // of the token (with the max number of words to go back defined in the config)
+            int maxNumKeywords = mConfig.MAX_NUM_KEYWORDS;
+
+            // Go back to the start of the word that the cursor is currently in
+            while (i > start && !isWordBreakingChar(text.charAt(i - 1))) {
+                i--;
+            }
+
+            // Cursor is at beginning of current word, go back MaxNumKeywords - 1 now
+            for (int j = 0; j < maxNumKeywords - 1; j++) {
+                // Decrement through only one word-breaking character, if it exists
+                if (i > start && isWordBreakingChar(text.charAt(i - 1))) {
+                    i--;
+                }
+                // If there is more than one word-breaking space, break out now
+                // Do not consider queries with words separated by more than one word-breaking char
+                if (i > start && isWordBreakingChar(text.charAt(i - 1))) {
+                    break;
+                }
+                // Decrement until the next space
+                while (i > start && !isWordBreakingChar(text.charAt(i - 1))) {
+                    i--;
+                }
+            }
+
+            // Ensures that text.char(i) is not a word-breaking or explicit char (i.e. cursor must have a
+            // word-breaking char in front of it and a non-word-breaking char behind it)
+            while (i < cursor && (isWordBreakingChar(text.charAt(i)) || isExplicitChar(text.charAt(i)))) {
+                i++;
+            }
+
+            return i;
+        }
+    }
+
+    /**
+     * Finds the end of the token at the cursor by scanning the text (see {@link #findTokenEnd(Spanned, int)}).
+     */
+    private int computeTokenEnd(final @NonNull Spanned text, final int cursor) {
+        return scanTokenEnd(text, cursor, getSearchEndIndex(text, cursor));
+    }
+
+    /**
+     * Finds the end of the token at the cursor, searching no further forward than end.
+     */
+    private int scanTokenEnd(final @NonNull Spanned text, final int cursor, final int end) {
+        int i = cursor;
+
+        // Starting from the cursor, increment i until it reaches the first word-breaking char
+        while (i >= 0 && i < end) {
+            if (isWordBreakingChar(text.charAt(i))) {
+                return i;
+            } else {
+                i++;
+            }
+        }
+
+        return i;
+    }
+
+    /**
+     * @return the index of every occurrence of the line separator within text, in increasing order
+     */
+    @NonNull
+    private int[] findLineSeparators(final @NonNull CharSequence text) {
+        final String separator = mConfig.LINE_SEPARATOR;
+        if (separator.length() == 0) {
+            return new int[0];
+        }
+        int[] separators = new int[16];
+        int count = 0;
+        for (int i = 0; i + separator.length() <= text.length(); i++) {
+            if (regionMatches(text, i, separator)) {
+                if (count == separators.length) {
+                    separators = Arrays.copyOf(separators, count * 2);
+                }
+                separators[count++] = i;
+            }
+        }
+        return Arrays.copyOf(separators, count);
+    }
+
+    /**
+     * Allocation-free equivalent of {@link String#regionMatches(int, String, int, int)} for a {@link CharSequence}.
+     */
+    private static boolean regionMatches(final @NonNull CharSequence text, final int offset,
+                                         final @NonNull String other) {
+        final int otherLength = other.length();
+        if (offset < 0 || offset + otherLength > text.length()) {
+            return false;
+        }
+        for (int i = 0; i < otherLength; i++) {
+            if (text.charAt(offset + i) != other.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
 }
@@ -15,6 +15,11 @@
 package com.linkedin.android.spyglass.tokenization.impl;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * Class used to configure various parsing options for the {@link WordTokenizer}. Instantiate using the
@@ -40,16 +45,82 @@ public class WordTokenizerConfig {
     @NonNull
     public final String WORD_BREAK_CHARS;
 
+    // Compiled lookup tables for EXPLICIT_CHARS and WORD_BREAK_CHARS, built once by the Builder
+    @NonNull
+    public final CharClassifier EXPLICIT_CHAR_CLASSIFIER;
+
+    @NonNull
+    public final CharClassifier WORD_BREAK_CHAR_CLASSIFIER;
+
+    // Whether tokens without an explicit character may be valid mentions
+    public final boolean IMPLICIT_MENTIONS_ENABLED;
+
+    // Additional rules for the queries started by specific triggers (i.e. explicit characters), keyed by trigger
+    @NonNull
+    public final Map<String, TriggerRule> TRIGGER_RULES;
+
+    // Additional rule for the queries without an explicit trigger (only used if IMPLICIT_MENTIONS_ENABLED is set), i.e.
+    // the rule of the trigger that implicit queries stand in for (see TriggerRule#APPLIES_TO_IMPLICIT)
+    // Note: The MIN_QUERY_LENGTH of the rule applies on top of the THRESHOLD
+    @Nullable
+    public final TriggerRule IMPLICIT_RULE;
+
     private WordTokenizerConfig(final @NonNull String lineSeparator,
                                 final int threshold,
                                 final int maxNumKeywords,
                                 final @NonNull String explicitChars,
-                                final @NonNull String wordBreakChars) {
+                                final @NonNull String wordBreakChars,
+                                final boolean implicitMentionsEnabled,
+                                final @NonNull Map<String, TriggerRule> triggerRules,
+                                final @Nullable TriggerRule implicitRule) {
         LINE_SEPARATOR = lineSeparator;
         THRESHOLD = threshold;
         MAX_NUM_KEYWORDS = maxNumKeywords;
         EXPLICIT_CHARS = explicitChars;
         WORD_BREAK_CHARS = wordBreakChars;
+        EXPLICIT_CHAR_CLASSIFIER = new CharClassifier(explicitChars);
+        WORD_BREAK_CHAR_CLASSIFIER = new CharClassifier(wordBreakChars);
+        IMPLICIT_MENTIONS_ENABLED = implicitMentionsEnabled;
+        TRIGGER_RULES = Collections.unmodifiableMap(new HashMap<>(triggerRules));
+        IMPLICIT_RULE = implicitRule;
+    }
+
+    /**
+     * @param trigger the explicit trigger at the start of a query, i.e. "#"
+     * @return the {@link TriggerRule} for the trigger, or null if only the default rules apply to it
+     */
+    @Nullable
+    public TriggerRule getTriggerRule(final @NonNull String trigger) {
+        return TRIGGER_RULES.get(trigger);
+    }
+
+    /**
+     * Rules that apply to the queries started by a single trigger (or to the implicit queries, which have no trigger),
+     * in addition to the default rules of the tokenizer. They allow, for example, hashtag queries to wait for more
+     * characters than queries for people.
+     */
+    public static class TriggerRule {
+
+        // Number of characters required after the trigger before returning a mention suggestion
+        public final int MIN_QUERY_LENGTH;
+
+        // Max number of words to consider as keywords in a query started by the trigger
+        // Note: Queries can never contain more than the MAX_NUM_KEYWORDS of the config
+        public final int MAX_NUM_KEYWORDS;
+
+        // Whether the rule also applies to the queries without an explicit trigger, i.e. if names typed without "@"
+        // should also be looked up as people
+        public final boolean APPLIES_TO_IMPLICIT;
+
+        public TriggerRule(final int minQueryLength, final int maxNumKeywords) {
+            this(minQueryLength, maxNumKeywords, false);
+        }
+
+        public TriggerRule(final int minQueryLength, final int maxNumKeywords, final boolean appliesToImplicit) {
+            MIN_QUERY_LENGTH = minQueryLength;
+            MAX_NUM_KEYWORDS = maxNumKeywords;
+            APPLIES_TO_IMPLICIT = appliesToImplicit;
+        }
     }
 
     public static class Builder {
@@ -60,6 +131,9 @@ public class WordTokenizerConfig {
         private int maxNumKeywords = 1;
         private String explicitChars = "@";
         private String wordBreakChars = " ." + System.getProperty("line.separator");
+        private boolean implicitMentionsEnabled = true;
+        private final Map<String, TriggerRule> triggerRules = new HashMap<>();
+        private TriggerRule implicitRule = null;
 
         @NonNull
         public Builder setLineSeparator(@NonNull String lineSeparator) {
@@ -91,10 +165,46 @@ public class WordTokenizerConfig {
             return this;
         }
 
+        @NonNull
+        public Builder setImplicitMentionsEnabled(boolean implicitMentionsEnabled) {
+            this.implicitMentionsEnabled = implicitMentionsEnabled;
+            return this;
+        }
+
+        @NonNull
+        public Builder setTriggerRule(@NonNull String trigger, int minQueryLength, int maxNumKeywords) {
+            return setTriggerRule(trigger, minQueryLength, maxNumKeywords, false);
+        }
+
+        /**
+         * Sets the rule for the queries started by a trigger. If the rule applies to implicit queries, it also
+         * becomes the rule for the queries without a trigger, replacing any rule set before (i.e. by
+         * {@link #setImplicitRule(int, int)}).
+         */
+        @NonNull
+        public Builder setTriggerRule(@NonNull String trigger, int minQueryLength, int maxNumKeywords,
+                                      boolean appliesToImplicit) {
+            TriggerRule rule = new TriggerRule(minQueryLength, maxNumKeywords, appliesToImplicit);
+            TriggerRule previousRule = this.triggerRules.put(trigger, rule);
+            if (appliesToImplicit) {
+                this.implicitRule = rule;
+            } else if (previousRule != null && previousRule == this.implicitRule) {
+                // The trigger no longer applies to implicit queries
+                this.implicitRule = null;
+            }
+            return this;
+        }
+
+        @NonNull
+        public Builder setImplicitRule(int minQueryLength, int maxNumKeywords) {
+            this.implicitRule = new TriggerRule(minQueryLength, maxNumKeywords);
+            return this;
+        }
+
         @NonNull
         public WordTokenizerConfig build() {
             return new WordTokenizerConfig(lineSeparator, threshold, maxNumKeywords,
-                    explicitChars, wordBreakChars);
+                    explicitChars, wordBreakChars, implicitMentionsEnabled, triggerRules, implicitRule);
         }
     }
 }
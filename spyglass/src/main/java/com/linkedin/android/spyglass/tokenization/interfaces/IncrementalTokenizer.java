@@ -0,0 +1,42 @@
+/*
+ * Copyright 2015 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package com.linkedin.android.spyglass.tokenization.interfaces;
+
+import android.text.Spanned;
+
+import androidx.annotation.NonNull;
+
+/**
+ * A {@link Tokenizer} that keeps the token at the cursor as state and updates it from the changes made to the text,
+ * instead of finding it from scratch after every change. The {@link com.linkedin.android.spyglass.ui.MentionsEditText}
+ * passes every change it observes to its tokenizer if it implements this interface.
+ * <p>
+ * Implementations must always return the same results from {@link #findTokenStart(Spanned, int)} and
+ * {@link #findTokenEnd(Spanned, int)} as a full scan of the text would, and should fall back to one whenever they
+ * cannot account for a change.
+ */
+public interface IncrementalTokenizer extends Tokenizer {
+
+    /**
+     * Called when the text has changed. Within text, the before characters beginning at start have just been replaced
+     * by count new characters (see {@link android.text.TextWatcher#onTextChanged(CharSequence, int, int, int)}).
+     *
+     * @param text   the {@link Spanned} that changed
+     * @param start  index of the first character that changed
+     * @param before number of characters that were replaced
+     * @param count  number of characters that replaced them
+     */
+    void onTextChanged(final @NonNull Spanned text, final int start, final int before, final int count);
+}
@@ -15,9 +15,15 @@
 package com.linkedin.android.spyglass.tokenization.interfaces;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import android.text.Spanned;
 
+import com.linkedin.android.spyglass.tokenization.CandidateToken;
+
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * An interface representing a tokenizer. Similar to {@link android.widget.MultiAutoCompleteTextView.Tokenizer}, but
  * it operates on {@link Spanned} objects instead of {@link CharSequence} objects.
@@ -52,6 +58,49 @@ public interface Tokenizer {
      */
     boolean isValidMention(final @NonNull Spanned text, final int start, final int end);
 
+    /**
+     * Finds every valid token within the given text, in order. Starting from the beginning of the text, the token at
+     * the cursor is found using {@link #findTokenStart(Spanned, int)} and {@link #findTokenEnd(Spanned, int)}, and the
+     * cursor then moves past it. Used to find the mentions within a block of pasted text.
+     * <p>
+     * The default implementation looks up every token independently. Implementations should override this to scan the
+     * text once, since each lookup may need to examine the whole line containing the cursor.
+     *
+     * @param text the {@link Spanned} to find the tokens in
+     * @return a {@link List} of the valid tokens within text
+     */
+    @NonNull
+    default List<CandidateToken> findAllTokens(final @NonNull Spanned text) {
+        List<CandidateToken> tokens = new ArrayList<>();
+        int cursor = 0;
+        while (cursor <= text.length()) {
+            int start = findTokenStart(text, cursor);
+            int end = findTokenEnd(text, cursor);
+            if (isValidMention(text, start, end)) {
+                tokens.add(new CandidateToken(start, end, getExplicitTrigger(text, start, end)));
+            }
+            cursor += end - start + 1;
+        }
+        return tokens;
+    }
+
+    /**
+     * Returns the explicit trigger at the start of the given token, if the token is explicit. By default, a trigger is
+     * a single explicit character (see {@link #isExplicitChar(char)}).
+     *
+     * @param text  the {@link Spanned} containing the token
+     * @param start index of the first character in the token (see {@link #findTokenStart(Spanned, int)})
+     * @param end   index after the last character in the token (see {@link #findTokenEnd(Spanned, int)})
+     * @return the explicit trigger, or null if the token is not explicit
+     */
+    @Nullable
+    default String getExplicitTrigger(final @NonNull Spanned text, final int start, final int end) {
+        if (start < 0 || start >= end || end > text.length() || !isExplicitChar(text.charAt(start))) {
+            return null;
+        }
+        return String.valueOf(text.charAt(start));
+    }
+
     /**
      * Returns text, modified, to ensure that it ends with a token terminator if necessary.
      *
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2015 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package com.linkedin.android.spyglass.ui;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Timings of the phases that the {@link MentionsEditText} goes through to process a single edit, as reported to its
+ * {@link MentionsEditText.EditTimingListener}. The same instance is reused for every edit, so it should not be kept
+ * after the listener returns.
+ */
+public class EditTimings {
+
+    /**
+     * Phases of processing an edit, in the order in which they run.
+     */
+    public enum Phase {
+        // Marking mentions to be deleted (before the text changes)
+        MARK_SPANS,
+
+        // Temporarily replacing mentions that could interfere with composing text (before the text changes)
+        REPLACE_MENTIONS_WITH_PLACEHOLDERS,
+
+        // Updating the current token of an incremental tokenizer (as the text changes)
+        UPDATE_TOKENIZER,
+
+        // Marking text duplicated by the editor to be deleted (as the text changes)
+        MARK_DUPLICATED_TEXT,
+
+        // Removing the text marked to be deleted (after the text changes)
+        REMOVE_TEXT_WITHIN_DELETE_SPANS,
+
+        // Reinserting the mentions that were replaced by placeholders (after the text changes)
+        REPLACE_PLACEHOLDERS_WITH_MENTIONS,
+
+        // Ensuring that the text of every mention remains valid (after the text changes)
+        ENSURE_MENTION_SPAN_INTEGRITY,
+
+        // Finding and dispatching the query at the cursor (after the text changes)
+        HANDLE_TEXT_CHANGED
+    }
+
+    private final long[] mPhaseNanos = new long[Phase.values().length];
+    private boolean mStarted;
+    private int mStart;
+    private int mBefore;
+    private int mCount;
+    private int mTextLength;
+    private int mMentionSpanCount;
+
+    EditTimings() {
+    }
+
+    // --------------------------------------------------
+    // Public Methods
+    // --------------------------------------------------
+
+    /**
+     * @param phase the phase of processing the edit
+     * @return the time spent in the phase, in nanoseconds
+     */
+    public long getPhaseNanos(@NonNull Phase phase) {
+        return mPhaseNanos[phase.ordinal()];
+    }
+
+    /**
+     * @return the time spent in all of the phases, in nanoseconds
+     */
+    public long getTotalNanos() {
+        long total = 0;
+        for (long nanos : mPhaseNanos) {
+            total += nanos;
+        }
+        return total;
+    }
+
+    /**
+     * @return the index of the first character that changed
+     */
+    public int getStart() {
+        return mStart;
+    }
+
+    /**
+     * @return the number of characters that were replaced
+     */
+    public int getBefore() {
+        return mBefore;
+    }
+
+    /**
+     * @return the number of characters that replaced them
+     */
+    public int getCount() {
+        return mCount;
+    }
+
+    /**
+     * @return the length of the text after the edit
+     */
+    public int getTextLength() {
+        return mTextLength;
+    }
+
+    /**
+     * @return the number of mentions in the text after the edit
+     */
+    public int getMentionSpanCount() {
+        return mMentionSpanCount;
+    }
+
+    // --------------------------------------------------
+    // Package-Private Methods (used by MentionsEditText)
+    // --------------------------------------------------
+
+    void start(int start, int before, int count) {
+        mStarted = true;
+        mStart = start;
+        mBefore = before;
+        mCount = count;
+        for (int i = 0; i < mPhaseNanos.length; i++) {
+            mPhaseNanos[i] = 0;
+        }
+    }
+
+    boolean isStarted() {
+        return mStarted;
+    }
+
+    /**
+     * Records the end of a phase.
+     *
+     * @param phase      the phase that ended
+     * @param startNanos the time at which the phase started, from {@link System#nanoTime()}
+     * @return the time at which the phase ended
+     */
+    long record(@NonNull Phase phase, long startNanos) {
+        long now = System.nanoTime();
+        mPhaseNanos[phase.ordinal()] += now - startNanos;
+        return now;
+    }
+
+    void finish(int textLength, int mentionSpanCount) {
+        mStarted = false;
+        mTextLength = textLength;
+        mMentionSpanCount = mentionSpanCount;
+    }
+}
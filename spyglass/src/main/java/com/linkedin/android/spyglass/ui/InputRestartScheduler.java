@@ -0,0 +1,85 @@
+/*
+ * Copyright 2015 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package com.linkedin.android.spyglass.ui;
+
+import android.content.Context;
+import android.view.inputmethod.InputMethodManager;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Coalesces requests to restart the input method for a {@link TextView}, so that it is restarted at most once per
+ * frame. Restarting the input method is expensive (and makes the keyboard flicker on some devices), yet several
+ * changes within one frame may each need it, i.e. several mentions being inserted or removed.
+ */
+final class InputRestartScheduler implements Runnable {
+
+    private final TextView mView;
+
+    private boolean mScheduled = false;
+
+    private int mRequestCount = 0;
+    private int mRestartCount = 0;
+
+    InputRestartScheduler(@NonNull TextView view) {
+        mView = view;
+    }
+
+    /**
+     * Requests a restart because the text or its spans changed.
+     */
+    void requestRestart() {
+        mRequestCount++;
+        if (!mScheduled) {
+            mScheduled = true;
+            mView.postOnAnimation(this);
+        }
+    }
+
+    /**
+     * Cancels any pending restart, i.e. when the view is detached.
+     */
+    void cancel() {
+        if (mScheduled) {
+            mView.removeCallbacks(this);
+            mScheduled = false;
+        }
+    }
+
+    /**
+     * @return the number of restarts that have been requested
+     */
+    int getRequestCount() {
+        return mRequestCount;
+    }
+
+    /**
+     * @return the number of restarts that were performed
+     */
+    int getRestartCount() {
+        return mRestartCount;
+    }
+
+    @Override
+    public void run() {
+        mScheduled = false;
+        InputMethodManager imm = (InputMethodManager) mView.getContext().getSystemService(Context.INPUT_METHOD_SERVICE);
+        if (imm != null) {
+            imm.restartInput(mView);
+            mRestartCount++;
+        }
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright 2015 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package com.linkedin.android.spyglass.ui;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.linkedin.android.spyglass.mentions.Mentionable;
+
+import java.util.Arrays;
+
+/**
+ * All of the changes made to the mentions in a {@link MentionsEditText} by one edit (i.e. a keystroke, a paste, or a
+ * batch of insertions), delivered at once to a {@link MentionsEditText.BatchMentionWatcher}. The changes are given in
+ * the order they were made, and the positions of the changes are packed into primitive arrays.
+ * <p>
+ * The text is only copied if it is asked for, through {@link #getText()}. The instance is reused for later edits, so it
+ * is only valid for the duration of the callback that it was given to.
+ */
+public final class MentionChanges {
+
+    /**
+     * Type of change made to a mention.
+     */
+    public enum Type {
+        /**
+         * The mention was added to the text.
+         */
+        ADDED,
+
+        /**
+         * The mention was removed from the text.
+         */
+        DELETED,
+
+        /**
+         * Part of the mention was removed from the text (see {@link Mentionable.MentionDisplayMode#PARTIAL}).
+         */
+        PARTIALLY_DELETED
+    }
+
+    private static final int INITIAL_CAPACITY = 4;
+
+    private int mSize = 0;
+    private Type[] mTypes = new Type[INITIAL_CAPACITY];
+    private Mentionable[] mMentions = new Mentionable[INITIAL_CAPACITY];
+    private int[] mStarts = new int[INITIAL_CAPACITY];
+    private int[] mEnds = new int[INITIAL_CAPACITY];
+    private String[] mChangedTexts = new String[INITIAL_CAPACITY];
+    private String[] mTextsBeforeDeletion = new String[INITIAL_CAPACITY];
+
+    private CharSequence mText = "";
+    @Nullable
+    private TextSnapshot mTextSnapshot;
+
+    MentionChanges() {
+    }
+
+    /**
+     * @return the number of changes
+     */
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * @param index the index of the change, less than {@link #size()}
+     * @return the type of the change
+     */
+    @NonNull
+    public Type getType(int index) {
+        checkIndex(index);
+        return mTypes[index];
+    }
+
+    /**
+     * @param index the index of the change, less than {@link #size()}
+     * @return the {@link Mentionable} that was changed
+     */
+    @NonNull
+    public Mentionable getMention(int index) {
+        checkIndex(index);
+        return mMentions[index];
+    }
+
+    /**
+     * @param index the index of the change, less than {@link #size()}
+     * @return the start of the mention when it was changed
+     */
+    public int getStart(int index) {
+        checkIndex(index);
+        return mStarts[index];
+    }
+
+    /**
+     * @param index the index of the change, less than {@link #size()}
+     * @return the end of the mention when it was changed (for deleted mentions, the end before it was deleted)
+     */
+    public int getEnd(int index) {
+        checkIndex(index);
+        return mEnds[index];
+    }
+
+    /**
+     * Returns the starts of all of the changes. Note that the array is not copied, so only the first {@link #size()}
+     * elements are valid and it must not be modified.
+     *
+     * @return the start of each change
+     */
+    @NonNull
+    public int[] getStarts() {
+        return mStarts;
+    }
+
+    /**
+     * Returns the ends of all of the changes. Note that the array is not copied, so only the first {@link #size()}
+     * elements are valid and it must not be modified.
+     *
+     * @return the end of each change
+     */
+    @NonNull
+    public int[] getEnds() {
+        return mEnds;
+    }
+
+    /**
+     * @param index the index of the change, less than {@link #size()}
+     * @return the text that was removed for a {@link Type#DELETED} mention, the new text of a
+     * {@link Type#PARTIALLY_DELETED} mention, or null for an {@link Type#ADDED} mention
+     */
+    @Nullable
+    public String getChangedText(int index) {
+        checkIndex(index);
+        return mChangedTexts[index];
+    }
+
+    /**
+     * Returns the text after all of the changes were made. This is a view of the text in the {@link MentionsEditText},
+     * so call {@link CharSequence#toString()} on it to keep a copy of it.
+     *
+     * @return the text after the changes
+     */
+    @NonNull
+    public CharSequence getText() {
+        TextSnapshot snapshot = mTextSnapshot;
+        if (snapshot == null) {
+            snapshot = TextSnapshot.of(mText);
+            mTextSnapshot = snapshot;
+        }
+        return snapshot;
+    }
+
+    /**
+     * Returns the text as it was right before the given {@link Type#DELETED} mention was removed from it. Since the
+     * text before each deletion has to be copied, it is only recorded if one of the watchers asked for it through
+     * {@link MentionsEditText.BatchMentionWatcher#needsTextBeforeDeletion()}.
+     *
+     * @param index the index of a {@link Type#DELETED} change, less than {@link #size()}
+     * @return the text before the mention was deleted, or null if it was not recorded or the change is not a deletion
+     */
+    @Nullable
+    public String getTextBeforeDeletion(int index) {
+        checkIndex(index);
+        return mTextsBeforeDeletion[index];
+    }
+
+    // --------------------------------------------------
+    // Package-Private Methods
+    // --------------------------------------------------
+
+    void add(@NonNull Type type, @NonNull Mentionable mention, int start, int end, @Nullable String changedText) {
+        add(type, mention, start, end, changedText, null);
+    }
+
+    void add(@NonNull Type type, @NonNull Mentionable mention, int start, int end, @Nullable String changedText,
+             @Nullable String textBeforeDeletion) {
+        if (mSize == mTypes.length) {
+            int capacity = mSize * 2;
+            mTypes = Arrays.copyOf(mTypes, capacity);
+            mMentions = Arrays.copyOf(mMentions, capacity);
+            mStarts = Arrays.copyOf(mStarts, capacity);
+            mEnds = Arrays.copyOf(mEnds, capacity);
+            mChangedTexts = Arrays.copyOf(mChangedTexts, capacity);
+            mTextsBeforeDeletion = Arrays.copyOf(mTextsBeforeDeletion, capacity);
+        }
+        mTypes[mSize] = type;
+        mMentions[mSize] = mention;
+        mStarts[mSize] = start;
+        mEnds[mSize] = end;
+        mChangedTexts[mSize] = changedText;
+        mTextsBeforeDeletion[mSize] = textBeforeDeletion;
+        mSize++;
+    }
+
+    void setText(@NonNull CharSequence text) {
+        mText = text;
+        mTextSnapshot = null;
+    }
+
+    void clear() {
+        // Release the references to the mentions and the text
+        Arrays.fill(mMentions, 0, mSize, null);
+        Arrays.fill(mChangedTexts, 0, mSize, null);
+        Arrays.fill(mTextsBeforeDeletion, 0, mSize, null);
+        mSize = 0;
+        mText = "";
+        mTextSnapshot = null;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= mSize) {
+            throw new IndexOutOfBoundsException("index " + index + ", size " + mSize);
+        }
+    }
+}
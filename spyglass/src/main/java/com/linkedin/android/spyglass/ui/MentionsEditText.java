@@ -23,6 +23,7 @@ import android.os.Parcel;
 import android.os.Parcelable;
 import android.text.Editable;
 import android.text.Layout;
+import android.text.NoCopySpan;
 import android.text.Selection;
 import android.text.Spannable;
 import android.text.SpannableString;
@@ -56,11 +57,14 @@ import com.linkedin.android.spyglass.mentions.MentionSpanConfig;
 import com.linkedin.android.spyglass.mentions.Mentionable;
 import com.linkedin.android.spyglass.mentions.MentionsEditable;
 import com.linkedin.android.spyglass.suggestions.interfaces.SuggestionsVisibilityManager;
+import com.linkedin.android.spyglass.tokenization.CandidateToken;
 import com.linkedin.android.spyglass.tokenization.QueryToken;
+import com.linkedin.android.spyglass.tokenization.interfaces.IncrementalTokenizer;
 import com.linkedin.android.spyglass.tokenization.interfaces.MentionClickReceiver;
 import com.linkedin.android.spyglass.tokenization.interfaces.QueryTokenReceiver;
 import com.linkedin.android.spyglass.tokenization.interfaces.TokenSource;
 import com.linkedin.android.spyglass.tokenization.interfaces.Tokenizer;
+import com.linkedin.android.spyglass.ui.EditTimings.Phase;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -84,12 +88,29 @@ public class MentionsEditText extends AppCompatEditText implements TokenSource {
     private QueryTokenReceiver mQueryTokenReceiver;
     private MentionClickReceiver mMentionClickReceiver;
     private QueryToken mLastQueryToken;
+    // Range of the last query token in the text, while it is the current query
+    private int mLastQueryTokenStart = -1;
+    private int mLastQueryTokenEnd = -1;
     private SuggestionsVisibilityManager mSuggestionsVisibilityManager;
 
-    private final List<MentionWatcher> mMentionWatchers = new ArrayList<>();
+    private final List<BatchMentionWatcher> mMentionWatchers = new ArrayList<>();
+    private MentionChanges mPendingMentionChanges = new MentionChanges();
+    @Nullable
+    private MentionChanges mSpareMentionChanges;
     private final List<TextWatcher> mExternalTextWatchers = new ArrayList<>();
     private final MentionsTextWatcher mInternalTextWatcher = new MentionsTextWatcher();
+    private final DirtyRegionSpan mDirtyRegion = new DirtyRegionSpan();
+    private final InputRestartScheduler mInputRestartScheduler = new InputRestartScheduler(this);
+    private final QueryDispatcher mQueryDispatcher = new QueryDispatcher(this);
+    private boolean mInBatchEdit = false;
+    private int mBatchEditChangeCount = 0;
+    @Nullable
+    private EditTimingListener mEditTimingListener;
+    @Nullable
+    private EditTimings mEditTimings;
     private boolean mBlockCompletion = false;
+    private int mMentionBatchDepth = 0;
+    private final List<MentionSpan> mBatchedMentionSpans = new ArrayList<>();
     private boolean mIsWatchingText = false;
     private boolean mAvoidPrefixOnTap = false;
     @Nullable
@@ -173,8 +194,8 @@ public class MentionsEditText extends AppCompatEditText implements TokenSource {
         int cursor = Math.max(getSelectionStart(), 0);
         int start = mTokenizer.findTokenStart(text, cursor);
         int end = mTokenizer.findTokenEnd(text, cursor);
-        String contentString = text.toString();
-        return TextUtils.isEmpty(contentString) ? "" : contentString.substring(start, end);
+        // Note: Only the token is copied out of the text (without its spans)
+        return TextUtils.isEmpty(text) ? "" : TextUtils.substring(text, start, end);
     }
 
     /**
@@ -198,9 +219,8 @@ public class MentionsEditText extends AppCompatEditText implements TokenSource {
         }
 
         String tokenString = text.subSequence(start, end).toString();
-        char firstChar = tokenString.charAt(0);
-        boolean isExplicit = mTokenizer.isExplicitChar(tokenString.charAt(0));
-        return (isExplicit ? new QueryToken(tokenString, firstChar) : new QueryToken(tokenString));
+        String explicitTrigger = mTokenizer.getExplicitTrigger(text, start, end);
+        return (explicitTrigger != null ? new QueryToken(tokenString, explicitTrigger) : new QueryToken(tokenString));
     }
 
     // --------------------------------------------------
@@ -339,8 +359,9 @@ public class MentionsEditText extends AppCompatEditText implements TokenSource {
      */
     @Override
     protected void onSelectionChanged(final int selStart, final int selEnd) {
-        // if we changed selection
-        if (!mBlockCompletion && prevSel != -1 && (selEnd < prevSel || Math.abs(selEnd - prevSel) > 1)) {
+        // if we changed selection (note: the current query stays the same while the cursor is within its token)
+        if (!mBlockCompletion && prevSel != -1 && (selEnd < prevSel || Math.abs(selEnd - prevSel) > 1)
+                && !isWithinLastQueryToken(prevSel, selEnd)) {
             checkCurrentQuery(true);
         }
         prevSel = selEnd;
@@ -348,13 +369,26 @@ public class MentionsEditText extends AppCompatEditText implements TokenSource {
         super.onSelectionChanged(selStart, selEnd);
     }
 
+    /**
+     * Determines if the cursor moving between the two given indices stays within the token of the current query, in
+     * which case the query has not changed. If there is no current query, the cursor may have moved into a new one.
+     */
+    private boolean isWithinLastQueryToken(int from, int to) {
+        return mLastQueryToken != null && mLastQueryTokenStart >= 0
+                && mLastQueryTokenStart <= Math.min(from, to) && Math.max(from, to) <= mLastQueryTokenEnd;
+    }
+
     /**
      * Don't allow user to set starting position or ending position of selection within the mention.
      */
     private void updateSelectionIfRequired(final int selStart, final int selEnd) {
+        // Note: This is called on every cursor movement, so only look up the mentions around the selection
         MentionsEditable text = getMentionsText();
-        MentionSpan startMentionSpan = text.getMentionSpanAtOffset(selStart);
-        MentionSpan endMentionSpan = text.getMentionSpanAtOffset(selEnd);
+        MentionSpan startMentionSpan = text.getMentionSpanContaining(selStart);
+        MentionSpan endMentionSpan = (selEnd == selStart) ? startMentionSpan : text.getMentionSpanContaining(selEnd);
+        if (startMentionSpan == null && endMentionSpan == null) {
+            return;
+        }
         boolean selChanged = false;
         int start = selStart;
         int end = selEnd;
@@ -376,6 +410,25 @@ public class MentionsEditText extends AppCompatEditText implements TokenSource {
     // TextWatcher Implementation
     // --------------------------------------------------
 
+    /**
+     * Called when an input method starts making a batch of changes to the text.
+     */
+    @Override
+    public void onBeginBatchEdit() {
+        super.onBeginBatchEdit();
+        mInBatchEdit = true;
+    }
+
+    /**
+     * Called when an input method has finished making a batch of changes to the text.
+     */
+    @Override
+    public void onEndBatchEdit() {
+        super.onEndBatchEdit();
+        mInBatchEdit = false;
+        mBatchEditChangeCount = 0;
+    }
+
     private class MentionsTextWatcher implements TextWatcher {
 
         /**
@@ -387,13 +440,27 @@ public class MentionsEditText extends AppCompatEditText implements TokenSource {
                 return;
             }
 
+            // Start timing the edit, if requested
+            EditTimings timings = mEditTimings;
+            long time = 0;
+            if (timings != null) {
+                timings.start(start, before, after);
+                time = System.nanoTime();
+            }
+
             // Mark a span for deletion later if necessary
             boolean changed = markSpans(before, after);
+            if (timings != null) {
+                time = timings.record(Phase.MARK_SPANS, time);
+            }
 
             // If necessary, temporarily remove any MentionSpans that could potentially interfere with composing text
             if (!changed) {
                 replaceMentionSpansWithPlaceholdersAsNecessary(text);
             }
+            if (timings != null) {
+                timings.record(Phase.REPLACE_MENTIONS_WITH_PLACEHOLDERS, time);
+            }
 
             // Call any watchers for text changes
             sendBeforeTextChanged(text, start, before, after);
@@ -404,17 +471,41 @@ public class MentionsEditText extends AppCompatEditText implements TokenSource {
          */
         @Override
         public void onTextChanged(CharSequence text, int start, int before, int count) {
-            if (mBlockCompletion || !(text instanceof Editable) || getTokenizer() == null) {
+            if (mBlockCompletion || !(text instanceof Editable)) {
                 return;
             }
 
-            // If the editor tries to insert duplicated text, mark the duplicated text for deletion later
+            // Remember the changed text, so that it is examined in afterTextChanged
+            markDirtyRegion((Editable) text, start, start + count);
+            if (mInBatchEdit) {
+                mBatchEditChangeCount++;
+            }
+
+            if (getTokenizer() == null) {
+                return;
+            }
+
+            EditTimings timings = mEditTimings;
+            long time = (timings != null) ? System.nanoTime() : 0;
+
+            // Let an incremental tokenizer update the current token from the change
             Editable editable = (Editable) text;
-            int index = Selection.getSelectionStart(editable);
             Tokenizer tokenizer = getTokenizer();
+            if (tokenizer instanceof IncrementalTokenizer) {
+                ((IncrementalTokenizer) tokenizer).onTextChanged(editable, start, before, count);
+            }
+            if (timings != null) {
+                time = timings.record(Phase.UPDATE_TOKENIZER, time);
+            }
+
+            // If the editor tries to insert duplicated text, mark the duplicated text for deletion later
+            int index = Selection.getSelectionStart(editable);
             if (tokenizer != null) {
                 markDuplicatedTextForDeletionLater((Editable) text, index, tokenizer);
             }
+            if (timings != null) {
+                timings.record(Phase.MARK_DUPLICATED_TEXT, time);
+            }
 
             // Call any watchers for text changes
             sendOnTextChanged(text, start, before, count);
@@ -431,25 +522,59 @@ public class MentionsEditText extends AppCompatEditText implements TokenSource {
 
             // Block text change handling while we're changing the text (otherwise, may cause infinite loop)
             mBlockCompletion = true;
+            EditTimings timings = mEditTimings;
+            long time = (timings != null) ? System.nanoTime() : 0;
+
+            // Only the region affected by the change needs to be examined below. Fall back to the whole text if the
+            // region is unknown, or if an input method is making several changes within a batch edit. Note that the
+            // region is kept up to date by the text itself as it is changed by each step.
+            if (text.getSpanStart(mDirtyRegion) < 0 || (mInBatchEdit && mBatchEditChangeCount > 1)) {
+                text.setSpan(mDirtyRegion, 0, text.length(), Spanned.SPAN_INCLUSIVE_INCLUSIVE);
+            }
 
             // Text may have been marked to be removed in (before/on)TextChanged, remove that text now
-            removeTextWithinDeleteSpans(text);
+            removeTextWithinDeleteSpans(text, text.getSpanStart(mDirtyRegion), text.getSpanEnd(mDirtyRegion));
+            if (timings != null) {
+                time = timings.record(Phase.REMOVE_TEXT_WITHIN_DELETE_SPANS, time);
+            }
 
             // Some mentions may have been replaced by placeholders temporarily when altering the text, reinsert the
             // mention spans now
-            replacePlaceholdersWithCorrespondingMentionSpans(text);
+            replacePlaceholdersWithCorrespondingMentionSpans(text, text.getSpanStart(mDirtyRegion),
+                    text.getSpanEnd(mDirtyRegion));
+            if (timings != null) {
+                time = timings.record(Phase.REPLACE_PLACEHOLDERS_WITH_MENTIONS, time);
+            }
 
-            // Ensure that the text in all the MentionSpans remains unchanged and valid
-            ensureMentionSpanIntegrity(text);
+            // Ensure that the text in the MentionSpans affected by the change remains unchanged and valid
+            ensureMentionSpanIntegrity(text, text.getSpanStart(mDirtyRegion), text.getSpanEnd(mDirtyRegion));
+            text.removeSpan(mDirtyRegion);
+            if (timings != null) {
+                time = timings.record(Phase.ENSURE_MENTION_SPAN_INTEGRITY, time);
+            }
+
+            // Notify the mention watchers of all of the mentions changed by the edit at once
+            dispatchMentionChanges(text);
+            if (timings != null) {
+                time = System.nanoTime();
+            }
 
             // Handle the change in text (can modify it freely here)
             handleTextChanged();
+            if (timings != null) {
+                timings.record(Phase.HANDLE_TEXT_CHANGED, time);
+            }
 
             // Allow class to listen for changes to the text again
             mBlockCompletion = false;
 
             // Call any watchers for text changes after we have handled it
             sendAfterTextChanged(text);
+
+            // Report the timings of the edit, if requested
+            if (timings != null && timings.isStarted()) {
+                reportEditTimings(text, timings);
+            }
         }
 
         /**
@@ -516,6 +641,7 @@ public class MentionsEditText extends AppCompatEditText implements TokenSource {
         MentionSpan prevSpan = text.getMentionSpanEndingAt(cursor);
         boolean isNeedToMarkSpan = (count == (after + 1) || after == 0) && prevSpan != null;
         if (isNeedToMarkSpan) {
+            markDirtyRegion(text, text.getSpanStart(prevSpan), text.getSpanEnd(prevSpan));
             Mentionable mention = prevSpan.getMention();
             Mentionable.MentionDeleteStyle deleteStyle = mention.getDeleteStyle();
             Mentionable.MentionDisplayMode displayMode = prevSpan.getDisplayMode();
@@ -555,6 +681,7 @@ public class MentionsEditText extends AppCompatEditText implements TokenSource {
                 editable.setSpan(new PlaceholderSpan(span, spanStart, spanEnd),
                         spanStart, spanEnd, Spanned.SPAN_EXCLUSIVE_INCLUSIVE);
                 editable.removeSpan(span);
+                markDirtyRegion(editable, spanStart, spanEnd);
             }
         }
     }
@@ -599,19 +726,42 @@ public class MentionsEditText extends AppCompatEditText implements TokenSource {
                             spanEnd,
                             copyEnd,
                             Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+                    markDirtyRegion(text, spanEnd, copyEnd);
                 }
             }
         }
     }
 
+    /**
+     * Extends the region of the text that was affected by the change being handled by the {@link MentionsTextWatcher}
+     * (see {@link DirtyRegionSpan}) to include the given range.
+     *
+     * @param text  the text that is changing
+     * @param start the start of the range to include
+     * @param end   the end of the range to include
+     */
+    private void markDirtyRegion(@NonNull Spannable text, int start, int end) {
+        if (start < 0 || end < start) {
+            return;
+        }
+        int regionStart = text.getSpanStart(mDirtyRegion);
+        if (regionStart >= 0) {
+            start = Math.min(start, regionStart);
+            end = Math.max(end, text.getSpanEnd(mDirtyRegion));
+        }
+        text.setSpan(mDirtyRegion, start, end, Spanned.SPAN_INCLUSIVE_INCLUSIVE);
+    }
+
     /**
      * Removes any {@link com.linkedin.android.spyglass.ui.MentionsEditText.DeleteSpan}s and the text within them from
-     * the given text.
+     * the given region of the text.
      *
-     * @param text the editable containing DeleteSpans to remove
+     * @param text       the editable containing DeleteSpans to remove
+     * @param rangeStart the start of the region to examine
+     * @param rangeEnd   the end of the region to examine
      */
-    private void removeTextWithinDeleteSpans(@NonNull Editable text) {
-        DeleteSpan[] deleteSpans = text.getSpans(0, text.length(), DeleteSpan.class);
+    private void removeTextWithinDeleteSpans(@NonNull Editable text, int rangeStart, int rangeEnd) {
+        DeleteSpan[] deleteSpans = text.getSpans(rangeStart, rangeEnd, DeleteSpan.class);
         for (DeleteSpan span : deleteSpans) {
             int spanStart = text.getSpanStart(span);
             int spanEnd = text.getSpanEnd(span);
@@ -621,15 +771,18 @@ public class MentionsEditText extends AppCompatEditText implements TokenSource {
     }
 
     /**
-     * Replaces any {@link com.linkedin.android.spyglass.ui.MentionsEditText.PlaceholderSpan} within the given text with
-     * the {@link MentionSpan} it contains.
+     * Replaces any {@link com.linkedin.android.spyglass.ui.MentionsEditText.PlaceholderSpan} within the given region of
+     * the text with the {@link MentionSpan} it contains.
      * <p>
      * Note: These PlaceholderSpans are added in {@link #replaceMentionSpansWithPlaceholdersAsNecessary(CharSequence)}
      *
-     * @param text the final version of the text after it was changed
+     * @param text       the final version of the text after it was changed
+     * @param rangeStart the start of the region to examine
+     * @param rangeEnd   the end of the region to examine
      */
-    private void replacePlaceholdersWithCorrespondingMentionSpans(@NonNull Editable text) {
-        PlaceholderSpan[] tempSpans = text.getSpans(0, text.length(), PlaceholderSpan.class);
+    private void replacePlaceholdersWithCorrespondingMentionSpans(@NonNull Editable text, int rangeStart,
+                                                                  int rangeEnd) {
+        PlaceholderSpan[] tempSpans = text.getSpans(rangeStart, rangeEnd, PlaceholderSpan.class);
         for (PlaceholderSpan span : tempSpans) {
             int spanStart = text.getSpanStart(span);
             String mentionDisplayString = span.holder.getDisplayString();
@@ -650,21 +803,32 @@ public class MentionsEditText extends AppCompatEditText implements TokenSource {
         if (text == null) {
             return;
         }
+        ensureMentionSpanIntegrity(text, 0, text.length());
+    }
 
-        MentionSpan[] spans = text.getSpans(0, text.length(), MentionSpan.class);
+    /**
+     * Ensures that the text within each {@link MentionSpan} in the given region of the {@link Editable} correctly
+     * matches what it should be outputting. If not, replace it with the correct value.
+     *
+     * @param text       the {@link Editable} to examine
+     * @param rangeStart the start of the region to examine
+     * @param rangeEnd   the end of the region to examine
+     */
+    private void ensureMentionSpanIntegrity(@NonNull Editable text, int rangeStart, int rangeEnd) {
+        MentionSpan[] spans = text.getSpans(rangeStart, rangeEnd, MentionSpan.class);
         boolean spanAltered = false;
         for (MentionSpan span : spans) {
             int start = text.getSpanStart(span);
             int end = text.getSpanEnd(span);
-            CharSequence spanText = text.subSequence(start, end).toString();
             Mentionable.MentionDisplayMode displayMode = span.getDisplayMode();
 
             switch (displayMode) {
 
                 case PARTIAL:
                 case FULL:
-                    String name = span.getDisplayString();
-                    if (!name.contentEquals(spanText) && start >= 0 && start < end && end <= text.length()) {
+                    // Note: The text is compared in place, to avoid copying the text of every mention on each change
+                    if (!span.isDisplayedIn(text, start, end) && start >= 0 && start < end && end <= text.length()) {
+                        String name = span.getDisplayString();
                         // Mention display name does not match what is being shown,
                         // replace text in span with proper display name
                         int cursor = getSelectionStart();
@@ -680,8 +844,9 @@ public class MentionsEditText extends AppCompatEditText implements TokenSource {
                             text.setSpan(span, start, start + name.length(), Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
                         }
                         // Notify for partially deleted mentions.
-                        if (mMentionWatchers.size() > 0 && displayMode == Mentionable.MentionDisplayMode.PARTIAL) {
-                            notifyMentionPartiallyDeletedWatchers(span.getMention(), name, start, end);
+                        if (hasMentionWatchers() && displayMode == Mentionable.MentionDisplayMode.PARTIAL) {
+                            mPendingMentionChanges.add(MentionChanges.Type.PARTIALLY_DELETED, span.getMention(),
+                                    start, end, name);
                         }
                         spanAltered = true;
                     }
@@ -690,12 +855,16 @@ public class MentionsEditText extends AppCompatEditText implements TokenSource {
                 case NONE:
                 default:
                     // Mention with DisplayMode == NONE should be deleted from the text
-                    boolean hasListeners = mMentionWatchers.size() > 0;
-                    final String textBeforeDelete = hasListeners ? text.toString() : null;
+                    boolean hasListeners = hasMentionWatchers();
+                    final String deletedText = hasListeners ? TextUtils.substring(text, start, end) : null;
+                    // Copy the text before the deletion only for the watchers that need it, i.e. MentionWatchers
+                    final String textBeforeDelete = (hasListeners && mentionWatchersNeedTextBeforeDeletion())
+                            ? text.toString() : null;
                     text.delete(start, end);
                     setSelection(start);
                     if (hasListeners) {
-                        notifyMentionDeletedWatchers(span.getMention(), textBeforeDelete, start, end);
+                        mPendingMentionChanges.add(MentionChanges.Type.DELETED, span.getMention(), start, end,
+                                deletedText, textBeforeDelete);
                     }
                     spanAltered = true;
                     break;
@@ -704,7 +873,7 @@ public class MentionsEditText extends AppCompatEditText implements TokenSource {
 
         // Reset input method if spans have been changed (updates suggestions)
         if (spanAltered) {
-            restartInput();
+            requestInputRestart();
         }
     }
 
@@ -733,11 +902,13 @@ public class MentionsEditText extends AppCompatEditText implements TokenSource {
 
         // Request suggestions from the QueryClient
         QueryToken queryToken = getQueryTokenIfValid();
-        mLastQueryToken = queryToken;
+        setLastQueryToken(queryToken);
         if (queryToken != null && mQueryTokenReceiver != null) {
-            // Valid token, so send query to the app for processing
-            mQueryTokenReceiver.onQueryReceived(queryToken);
+            // Valid token, so send query to the app for processing (when, depends on the QueryDispatcherConfig)
+            mQueryDispatcher.submit(queryToken);
         } else {
+            mQueryDispatcher.cancel();
+
             // Ensure that the suggestions are hidden
             if (mSuggestionsVisibilityManager != null) {
                 mSuggestionsVisibilityManager.displaySuggestions(false);
@@ -745,21 +916,54 @@ public class MentionsEditText extends AppCompatEditText implements TokenSource {
         }
     }
 
+    /**
+     * Keeps the token of the current query, along with its range in the text (which stays valid until the text is
+     * changed, when the query is found again).
+     *
+     * @param queryToken the token of the current query, or null if there is none
+     */
+    private void setLastQueryToken(@Nullable QueryToken queryToken) {
+        mLastQueryToken = queryToken;
+        Tokenizer tokenizer = mTokenizer;
+        if (queryToken != null && tokenizer != null) {
+            int cursor = Math.max(getSelectionStart(), 0);
+            mLastQueryTokenStart = tokenizer.findTokenStart(getMentionsText(), cursor);
+            mLastQueryTokenEnd = mLastQueryTokenStart + queryToken.getTokenString().length();
+        } else {
+            mLastQueryTokenStart = -1;
+            mLastQueryTokenEnd = -1;
+        }
+    }
+
+    /**
+     * Sends the query for the current token to the {@link QueryTokenReceiver} again, even if it is the same as the
+     * last query sent, so that a newly attached list of suggestions receives it. Nothing is sent if there is no valid
+     * token at the cursor.
+     */
+    void resubmitCurrentQuery() {
+        QueryToken queryToken = getQueryTokenIfValid();
+        setLastQueryToken(queryToken);
+        if (queryToken != null && mQueryTokenReceiver != null) {
+            mQueryDispatcher.resubmit(queryToken);
+        }
+    }
+
     // --------------------------------------------------
     // Public Methods
     // --------------------------------------------------
 
     /**
      * Gets the keywords that the {@link Tokenizer} is currently considering for mention suggestions. Note that this is
-     * the keywords string and will not include any explicit character, if present.
+     * the keywords string and will not include any explicit trigger, if present.
      *
      * @return a String representing current keywords in the {@link EditText}
      */
     @NonNull
     public String getCurrentKeywordsString() {
         String keywordsString = getCurrentTokenString();
-        if (keywordsString.length() > 0 && mTokenizer.isExplicitChar(keywordsString.charAt(0))) {
-            keywordsString = keywordsString.substring(1);
+        String explicitTrigger = getCurrentExplicitTrigger();
+        if (explicitTrigger != null && keywordsString.startsWith(explicitTrigger)) {
+            keywordsString = keywordsString.substring(explicitTrigger.length());
         }
         return keywordsString;
     }
@@ -800,8 +1004,8 @@ public class MentionsEditText extends AppCompatEditText implements TokenSource {
 
     public void checkCurrentQuery(Boolean isManual) {
         // Handle custom insert mention
-        String currentText = getText().toString();
-        if (!currentText.isEmpty() && mLastQueryToken != null) {
+        Editable currentText = getText();
+        if (!TextUtils.isEmpty(currentText) && mLastQueryToken != null) {
             Tokenizer tokenizer = getTokenizer();
             if (tokenizer == null) return;
             int checkChar = Math.max(0, getSelectionEnd() - 1);
@@ -820,10 +1024,10 @@ public class MentionsEditText extends AppCompatEditText implements TokenSource {
         // Remove the inserted line breaker if present and handle the always insert
         Tokenizer tokenizer = getTokenizer();
         if (tokenizer == null) return;
-        String text = getText().toString();
+        Editable text = getEditableText();
         int length = text.length();
-        if (tokenizer.isWordBreakingChar(text.charAt(text.length() - 1))) {
-            getEditableText().delete(length - 1, length);
+        if (length > 0 && tokenizer.isWordBreakingChar(text.charAt(length - 1))) {
+            text.delete(length - 1, length);
         }
         insertMention(mention);
     }
@@ -850,6 +1054,89 @@ public class MentionsEditText extends AppCompatEditText implements TokenSource {
         insertMentionInternal(mention, text, start, end);
     }
 
+    /**
+     * Inserts a mention in place of the given range of the text, i.e. to pre-fill a draft with mentions. As with
+     * {@link #insertMention(Mentionable)}, a space is inserted after the mention and the cursor is placed after it.
+     * <p>
+     * When inserting several mentions, call this within {@link #beginMentionBatch()} and {@link #endMentionBatch()}.
+     * Note that each insertion shifts the text after it, so it is simplest to insert mentions from the end of the text
+     * to the start.
+     *
+     * @param mention {@link Mentionable} to insert a span for
+     * @param start   the start of the range to replace
+     * @param end     the end of the range to replace (may be equal to start to insert the mention at start)
+     */
+    public void insertMention(@NonNull Mentionable mention, int start, int end) {
+        Editable text = getEditableText();
+        if (start < 0 || start > end || end > text.length()) {
+            return;
+        }
+
+        insertMentionInternal(mention, text, start, end);
+    }
+
+    /**
+     * Starts a batch of mention insertions. Until the matching call to {@link #endMentionBatch()}, inserting mentions
+     * only changes the text: mention integrity checking, query checks, watcher notifications and resetting the input
+     * method are all done once, when the batch ends. The input method is also not updated until the batch ends.
+     * <p>
+     * Batches may be nested, in which case the outermost batch determines when the changes are applied.
+     */
+    public void beginMentionBatch() {
+        if (mMentionBatchDepth++ == 0) {
+            beginBatchEdit();
+            mBlockCompletion = true;
+        }
+    }
+
+    /**
+     * Ends a batch of mention insertions started by {@link #beginMentionBatch()}. If this ends the outermost batch,
+     * the mentions inserted within it are checked and the {@link MentionWatcher}s are notified of all of them through
+     * one {@link MentionChanges} event (see {@link BatchMentionWatcher}).
+     */
+    public void endMentionBatch() {
+        if (mMentionBatchDepth == 0 || --mMentionBatchDepth > 0) {
+            return;
+        }
+
+        Editable text = getEditableText();
+        ensureMentionSpanIntegrity(text);
+        setLastQueryToken(null);
+        mBlockCompletion = false;
+
+        // Report the mentions that are still in the text, at their final positions
+        for (MentionSpan span : mBatchedMentionSpans) {
+            int start = text.getSpanStart(span);
+            int end = text.getSpanEnd(span);
+            if (start >= 0 && end > start) {
+                span.setStart(start);
+                span.setEnd(end);
+                if (hasMentionWatchers()) {
+                    mPendingMentionChanges.add(MentionChanges.Type.ADDED, span.getMention(), start, end, null);
+                }
+            }
+        }
+        mBatchedMentionSpans.clear();
+        dispatchMentionChanges(text);
+
+        // Hide the suggestions and clear adapter
+        if (mSuggestionsVisibilityManager != null) {
+            mSuggestionsVisibilityManager.displaySuggestions(false);
+        }
+
+        endBatchEdit();
+
+        // Reset input method since text has been changed (updates mention draw states)
+        requestInputRestart();
+    }
+
+    /**
+     * @return true if mentions are currently being inserted within a batch (see {@link #beginMentionBatch()})
+     */
+    public boolean isInMentionBatch() {
+        return mMentionBatchDepth > 0;
+    }
+
     @SuppressLint("SetTextI18n")
     private void insertMentionInternal(@NonNull Mentionable mention, @NonNull Editable text, int start, int end) {
         String name = mention.getSuggestiblePrimaryText();
@@ -861,14 +1148,22 @@ public class MentionsEditText extends AppCompatEditText implements TokenSource {
         text.setSpan(mentionSpan, start, endOfMention, Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
         text.insert(endOfMention, " ");
         setSelection(endOfMention + 1);
+
+        // Within a batch, everything else is done once the batch ends
+        if (mMentionBatchDepth > 0) {
+            mBatchedMentionSpans.add(mentionSpan);
+            return;
+        }
+
         ensureMentionSpanIntegrity(text);
-        mLastQueryToken = null;
+        setLastQueryToken(null);
         mBlockCompletion = false;
 
         // Notify listeners of added mention
-        if (mMentionWatchers.size() > 0) {
-            notifyMentionAddedWatchers(mention, text.toString(), start, endOfMention);
+        if (hasMentionWatchers()) {
+            mPendingMentionChanges.add(MentionChanges.Type.ADDED, mention, start, endOfMention, null);
         }
+        dispatchMentionChanges(text);
 
         // Hide the suggestions and clear adapter
         if (mSuggestionsVisibilityManager != null) {
@@ -876,7 +1171,7 @@ public class MentionsEditText extends AppCompatEditText implements TokenSource {
         }
 
         // Reset input method since text has been changed (updates mention draw states)
-        restartInput();
+        requestInputRestart();
     }
 
     private MentionSpan createMentionSpan(@NonNull Mentionable mention, @Nullable MentionSpanConfig config, int start, int end) {
@@ -898,8 +1193,24 @@ public class MentionsEditText extends AppCompatEditText implements TokenSource {
      * @return true if the {@link Tokenizer} is currently considering an explicit query
      */
     public boolean isCurrentlyExplicit() {
-        String tokenString = getCurrentTokenString();
-        return tokenString.length() > 0 && mTokenizer != null && mTokenizer.isExplicitChar(tokenString.charAt(0));
+        return getCurrentExplicitTrigger() != null;
+    }
+
+    /**
+     * Gets the explicit trigger at the start of the token that the {@link Tokenizer} is currently considering.
+     *
+     * @return the explicit trigger, or null if the current token is implicit
+     */
+    @Nullable
+    private String getCurrentExplicitTrigger() {
+        Editable text = getText();
+        if (mTokenizer == null || text == null) {
+            return null;
+        }
+        int cursor = Math.max(getSelectionStart(), 0);
+        int start = mTokenizer.findTokenStart(text, cursor);
+        int end = mTokenizer.findTokenEnd(text, cursor);
+        return mTokenizer.getExplicitTrigger(text, start, end);
     }
 
     /**
@@ -963,14 +1274,15 @@ public class MentionsEditText extends AppCompatEditText implements TokenSource {
 
     /**
      * Register a {@link com.linkedin.android.spyglass.ui.MentionsEditText.MentionWatcher} in order to receive callbacks
-     * when mentions are changed.
+     * when mentions are changed. The watcher receives one callback per changed mention (see
+     * {@link MentionWatcherAdapter}); use a {@link BatchMentionWatcher} to receive all the changes from an edit at once.
      *
      * @param watcher the {@link com.linkedin.android.spyglass.ui.MentionsEditText.MentionWatcher} to add
      */
     @SuppressWarnings("unused")
     public void addMentionWatcher(@NonNull MentionWatcher watcher) {
-        if (!mMentionWatchers.contains(watcher)) {
-            mMentionWatchers.add(watcher);
+        if (indexOfMentionWatcher(watcher) < 0) {
+            mMentionWatchers.add(new MentionWatcherAdapter(watcher));
         }
     }
 
@@ -982,18 +1294,105 @@ public class MentionsEditText extends AppCompatEditText implements TokenSource {
      */
     @SuppressWarnings("unused")
     public void removeMentionWatcher(@NonNull MentionWatcher watcher) {
+        int index = indexOfMentionWatcher(watcher);
+        if (index >= 0) {
+            mMentionWatchers.remove(index);
+        }
+    }
+
+    /**
+     * Register a {@link com.linkedin.android.spyglass.ui.MentionsEditText.BatchMentionWatcher} in order to receive all
+     * of the changes to mentions made by each edit at once.
+     *
+     * @param watcher the {@link com.linkedin.android.spyglass.ui.MentionsEditText.BatchMentionWatcher} to add
+     */
+    @SuppressWarnings("unused")
+    public void addBatchMentionWatcher(@NonNull BatchMentionWatcher watcher) {
+        if (!mMentionWatchers.contains(watcher)) {
+            mMentionWatchers.add(watcher);
+        }
+    }
+
+    /**
+     * Remove a {@link com.linkedin.android.spyglass.ui.MentionsEditText.BatchMentionWatcher} from receiving anymore
+     * changes to mentions.
+     *
+     * @param watcher the {@link com.linkedin.android.spyglass.ui.MentionsEditText.BatchMentionWatcher} to remove
+     */
+    @SuppressWarnings("unused")
+    public void removeBatchMentionWatcher(@NonNull BatchMentionWatcher watcher) {
         mMentionWatchers.remove(watcher);
     }
 
+    /**
+     * Sets the {@link com.linkedin.android.spyglass.ui.MentionsEditText.EditTimingListener} to receive the timings of
+     * each edit. Edits are not timed while no listener is set.
+     *
+     * @param listener the {@link com.linkedin.android.spyglass.ui.MentionsEditText.EditTimingListener}, or null to
+     *                 stop timing edits
+     */
+    @SuppressWarnings("unused")
+    public void setEditTimingListener(@Nullable EditTimingListener listener) {
+        mEditTimingListener = listener;
+        mEditTimings = (listener != null) ? new EditTimings() : null;
+    }
+
+    /**
+     * Returns the number of times the input method has been asked to restart, i.e. because mentions were inserted or
+     * changed. Requests made within the same frame are coalesced, so this may be more than
+     * {@link #getInputRestartCount()}.
+     *
+     * @return the number of input method restarts requested
+     */
+    @SuppressWarnings("unused")
+    public int getInputRestartRequestCount() {
+        return mInputRestartScheduler.getRequestCount();
+    }
+
+    /**
+     * @return the number of times the input method has actually been restarted
+     */
+    @SuppressWarnings("unused")
+    public int getInputRestartCount() {
+        return mInputRestartScheduler.getRestartCount();
+    }
+
+    /**
+     * Sets the {@link QueryDispatcherConfig} that determines when queries are sent to the {@link QueryTokenReceiver}
+     * (i.e. to debounce them while the user is typing).
+     *
+     * @param config the {@link QueryDispatcherConfig} to use
+     */
+    @SuppressWarnings("unused")
+    public void setQueryDispatcherConfig(@NonNull QueryDispatcherConfig config) {
+        mQueryDispatcher.setConfig(config);
+    }
+
+    /**
+     * @return the {@link QueryDispatcher} that sends queries to the {@link QueryTokenReceiver}
+     */
+    @NonNull
+    public QueryDispatcher getQueryDispatcher() {
+        return mQueryDispatcher;
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        mInputRestartScheduler.cancel();
+        mQueryDispatcher.release();
+        super.onDetachedFromWindow();
+    }
+
     // --------------------------------------------------
     // Private Helper Methods
     // --------------------------------------------------
 
-    private void restartInput() {
-        InputMethodManager imm = (InputMethodManager) getContext().getSystemService(Context.INPUT_METHOD_SERVICE);
-        if (imm != null) {
-            imm.restartInput(this);
-        }
+    /**
+     * Requests that the input method is restarted. The restart happens once the current frame is drawn, together with
+     * any other restarts requested in the meantime (see {@link InputRestartScheduler}).
+     */
+    private void requestInputRestart() {
+        mInputRestartScheduler.requestRestart();
     }
 
     /**
@@ -1009,22 +1408,59 @@ public class MentionsEditText extends AppCompatEditText implements TokenSource {
         return sb;
     }
 
-    private void notifyMentionAddedWatchers(@NonNull Mentionable mention, @NonNull String text, int start, int end) {
-        for (MentionWatcher watcher : mMentionWatchers) {
-            watcher.onMentionAdded(mention, text, start, end);
+    private void reportEditTimings(@NonNull Editable text, @NonNull EditTimings timings) {
+        EditTimingListener listener = mEditTimingListener;
+        MentionSpan[] spans = text.getSpans(0, text.length(), MentionSpan.class);
+        timings.finish(text.length(), (spans != null) ? spans.length : 0);
+        if (listener != null) {
+            listener.onEditTimed(timings);
         }
     }
 
-    private void notifyMentionDeletedWatchers(@NonNull Mentionable mention, @NonNull String text, int start, int end) {
-        for (MentionWatcher watcher : mMentionWatchers) {
-            watcher.onMentionDeleted(mention, text, start, end);
+    private int indexOfMentionWatcher(@NonNull MentionWatcher watcher) {
+        for (int i = 0; i < mMentionWatchers.size(); i++) {
+            BatchMentionWatcher batchWatcher = mMentionWatchers.get(i);
+            if (batchWatcher instanceof MentionWatcherAdapter
+                    && ((MentionWatcherAdapter) batchWatcher).getMentionWatcher() == watcher) {
+                return i;
+            }
         }
+        return -1;
     }
 
-    private void notifyMentionPartiallyDeletedWatchers(@NonNull Mentionable mention, @NonNull String text, int start, int end) {
-        for (MentionWatcher watcher : mMentionWatchers) {
-            watcher.onMentionPartiallyDeleted(mention, text, start, end);
+    private boolean hasMentionWatchers() {
+        return mMentionWatchers.size() > 0;
+    }
+
+    private boolean mentionWatchersNeedTextBeforeDeletion() {
+        for (int i = 0; i < mMentionWatchers.size(); i++) {
+            if (mMentionWatchers.get(i).needsTextBeforeDeletion()) {
+                return true;
+            }
         }
+        return false;
+    }
+
+    /**
+     * Sends the mention changes recorded since the last call to the {@link BatchMentionWatcher}s, if there are any.
+     *
+     * @param text the text after the changes
+     */
+    private void dispatchMentionChanges(@NonNull CharSequence text) {
+        MentionChanges changes = mPendingMentionChanges;
+        if (changes.size() == 0) {
+            return;
+        }
+
+        // Note: Changes made by the watchers themselves are recorded separately, and sent after these
+        mPendingMentionChanges = (mSpareMentionChanges != null) ? mSpareMentionChanges : new MentionChanges();
+        mSpareMentionChanges = null;
+        changes.setText(text);
+        for (BatchMentionWatcher watcher : mMentionWatchers) {
+            watcher.onMentionsChanged(changes);
+        }
+        changes.clear();
+        mSpareMentionChanges = changes;
     }
 
     @Override
@@ -1065,29 +1501,30 @@ public class MentionsEditText extends AppCompatEditText implements TokenSource {
         ClipboardManager clipboard = (ClipboardManager) getContext().getSystemService(Context.CLIPBOARD_SERVICE);
         SpannableString replaceText = new SpannableString(clipboard.getText());
 
-        int cursor = 0;
-        while (cursor <= replaceText.length()) {
-            int start = mTokenizer.findTokenStart(replaceText, cursor);
-            int end = mTokenizer.findTokenEnd(replaceText, cursor);
-            if (mTokenizer.isValidMention(replaceText, start, end)) {
-                String tokenString = replaceText.subSequence(start, end).toString();
-                char firstChar = tokenString.charAt(0);
-                boolean isExplicit = mTokenizer.isExplicitChar(tokenString.charAt(0));
-                QueryToken queryToken = (isExplicit ? new QueryToken(tokenString, firstChar) : new QueryToken(tokenString));
-                Mentionable mentionable = mQueryTokenReceiver.getSuggestionFromQueryInstantly(queryToken);
-                if (mentionable != null) {
-                    // Need to count start and end against the actual text
-                    MentionSpan mentionSpan = createMentionSpan(mentionable, mentionSpanConfig, start + min, end + min);
-                    replaceText.setSpan(mentionSpan, start, end, Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
-                }
+        // Find all of the tokens in the pasted text in a single pass
+        int lastMentionEnd = 0;
+        for (CandidateToken token : mTokenizer.findAllTokens(replaceText)) {
+            int start = token.getStart();
+            int end = token.getEnd();
+            // Tokens may overlap if they can contain multiple keywords, but mentions cannot
+            if (start < lastMentionEnd) {
+                continue;
+            }
+            QueryToken queryToken = token.toQueryToken(replaceText);
+            Mentionable mentionable = mQueryTokenReceiver.getSuggestionFromQueryInstantly(queryToken);
+            if (mentionable != null) {
+                // Need to count start and end against the actual text
+                MentionSpan mentionSpan = createMentionSpan(mentionable, mentionSpanConfig, start + min, end + min);
+                replaceText.setSpan(mentionSpan, start, end, Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+                lastMentionEnd = end;
             }
-            cursor += end - start + 1;
         }
         mBlockCompletion = true;
         getEditableText().replace(min, max, replaceText);
         ensureMentionSpanIntegrity(getEditableText());
+        dispatchMentionChanges(getEditableText());
         mBlockCompletion = false;
-        restartInput();
+        requestInputRestart();
     }
 
     /**
@@ -1112,6 +1549,14 @@ public class MentionsEditText extends AppCompatEditText implements TokenSource {
     private class DeleteSpan {
     }
 
+    /**
+     * Marks the region of the text affected by the change currently being handled by the {@link MentionsTextWatcher},
+     * so that only the spans within it need to be examined after the change. Since it is a span, it is kept up to date
+     * as the text is changed further while handling the change.
+     */
+    private static class DirtyRegionSpan implements NoCopySpan {
+    }
+
     /**
      * Runnable which detects the long click action.
      */
@@ -1226,6 +1671,7 @@ public class MentionsEditText extends AppCompatEditText implements TokenSource {
      */
     public void setQueryTokenReceiver(@Nullable final QueryTokenReceiver queryTokenReceiver) {
         mQueryTokenReceiver = queryTokenReceiver;
+        mQueryDispatcher.setQueryTokenReceiver(queryTokenReceiver);
     }
 
     /**
@@ -1368,6 +1814,48 @@ public class MentionsEditText extends AppCompatEditText implements TokenSource {
          * @param end     the ending index of where the partial mention ends
          */
         void onMentionPartiallyDeleted(@NonNull Mentionable mention, @NonNull String text, int start, int end);
+
+        /**
+         * Callback for when a mention is added, which avoids copying the text. The text is a view of the text in the
+         * {@link MentionsEditText} that is only valid during the callback (call {@link CharSequence#toString()} to
+         * keep it). By default, calls {@link #onMentionAdded(Mentionable, String, int, int)}.
+         *
+         * @param mention the {@link Mentionable} that was added
+         * @param text    the text after the mention was added
+         * @param start   the starting index of where the mention was added
+         * @param end     the ending index of where the mention was added
+         */
+        default void onMentionAdded(@NonNull Mentionable mention, @NonNull CharSequence text, int start, int end) {
+            onMentionAdded(mention, text.toString(), start, end);
+        }
+
+        /**
+         * Callback for when a mention is deleted, which avoids copying the text. The text is a view of the text in the
+         * {@link MentionsEditText} that is only valid during the callback (call {@link CharSequence#toString()} to
+         * keep it). By default, calls {@link #onMentionDeleted(Mentionable, String, int, int)}.
+         *
+         * @param mention the {@link Mentionable} that was deleted
+         * @param text    the text before the mention was deleted
+         * @param start   the starting index of where the mention was deleted
+         * @param end     the ending index of where the mention was deleted
+         */
+        default void onMentionDeleted(@NonNull Mentionable mention, @NonNull CharSequence text, int start, int end) {
+            onMentionDeleted(mention, text.toString(), start, end);
+        }
+
+        /**
+         * Callback for when a mention is partially deleted, which avoids copying the text. By default, calls
+         * {@link #onMentionPartiallyDeleted(Mentionable, String, int, int)}.
+         *
+         * @param mention the {@link Mentionable} that was deleted
+         * @param text    the text after the mention was partially deleted
+         * @param start   the starting index of where the partial mention starts
+         * @param end     the ending index of where the partial mention ends
+         */
+        default void onMentionPartiallyDeleted(@NonNull Mentionable mention, @NonNull CharSequence text, int start,
+                                               int end) {
+            onMentionPartiallyDeleted(mention, text.toString(), start, end);
+        }
     }
 
     /**
@@ -1388,4 +1876,92 @@ public class MentionsEditText extends AppCompatEditText implements TokenSource {
         public void onMentionPartiallyDeleted(@NonNull Mentionable mention, @NonNull String text, int start, int end) {
         }
     }
+
+    /**
+     * Interface to receive all of the changes to mentions made by an edit (i.e. a keystroke, a paste, or a batch of
+     * insertions) at once. Unlike a {@link MentionWatcher}, the text is not copied unless the watcher asks for it.
+     */
+    public interface BatchMentionWatcher {
+        /**
+         * Callback for when mentions were added, deleted or partially deleted.
+         *
+         * @param changes the changes made to the mentions, only valid during the callback
+         */
+        void onMentionsChanged(@NonNull MentionChanges changes);
+
+        /**
+         * Whether the watcher needs {@link MentionChanges#getTextBeforeDeletion(int)}. If any watcher does, the
+         * text is copied before each mention is deleted, so only return true if the copies are really needed.
+         *
+         * @return true if the text before each deletion should be recorded
+         */
+        default boolean needsTextBeforeDeletion() {
+            return false;
+        }
+    }
+
+    /**
+     * Adapts a {@link MentionWatcher} to a {@link BatchMentionWatcher}, calling it once for each change. For deleted
+     * mentions, the text before the deletion is given by {@link MentionChanges#getTextBeforeDeletion(int)}.
+     */
+    public static class MentionWatcherAdapter implements BatchMentionWatcher {
+
+        private final MentionWatcher mMentionWatcher;
+
+        public MentionWatcherAdapter(@NonNull MentionWatcher watcher) {
+            mMentionWatcher = watcher;
+        }
+
+        @NonNull
+        public MentionWatcher getMentionWatcher() {
+            return mMentionWatcher;
+        }
+
+        @Override
+        public boolean needsTextBeforeDeletion() {
+            return true;
+        }
+
+        @Override
+        public void onMentionsChanged(@NonNull MentionChanges changes) {
+            for (int i = 0; i < changes.size(); i++) {
+                Mentionable mention = changes.getMention(i);
+                int start = changes.getStart(i);
+                int end = changes.getEnd(i);
+                switch (changes.getType(i)) {
+                    case ADDED:
+                        mMentionWatcher.onMentionAdded(mention, changes.getText(), start, end);
+                        break;
+                    case DELETED:
+                        String textBeforeDeletion = changes.getTextBeforeDeletion(i);
+                        mMentionWatcher.onMentionDeleted(mention,
+                                (textBeforeDeletion != null) ? textBeforeDeletion : changes.getText(), start, end);
+                        break;
+                    case PARTIALLY_DELETED:
+                    default:
+                        String changedText = changes.getChangedText(i);
+                        mMentionWatcher.onMentionPartiallyDeleted(mention,
+                                (changedText != null) ? changedText : changes.getText(), start, end);
+                        break;
+                }
+            }
+        }
+    }
+
+// --------------------------------------------------
+// EditTimingListener Interface
+// --------------------------------------------------
+
+    /**
+     * Interface to receive the time taken by each phase of processing an edit, i.e. to find the phases that cause
+     * dropped frames while typing.
+     */
+    public interface EditTimingListener {
+        /**
+         * Callback for when an edit has been processed.
+         *
+         * @param timings the {@link EditTimings} of the edit, which are only valid until this method returns
+         */
+        void onEditTimed(@NonNull EditTimings timings);
+    }
 }
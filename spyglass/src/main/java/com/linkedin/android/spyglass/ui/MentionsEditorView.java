@@ -32,16 +32,21 @@ import android.widget.RelativeLayout;
 import androidx.annotation.ColorInt;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 
 import com.linkedin.android.spyglass.R;
 import com.linkedin.android.spyglass.mentions.MentionSpan;
 import com.linkedin.android.spyglass.mentions.MentionSpanConfig;
 import com.linkedin.android.spyglass.mentions.Mentionable;
 import com.linkedin.android.spyglass.mentions.MentionsEditable;
+import com.linkedin.android.spyglass.suggestions.SuggestionProviderRunner;
 import com.linkedin.android.spyglass.suggestions.SuggestionsAdapter;
+import com.linkedin.android.spyglass.suggestions.SuggestionsRecyclerAdapter;
 import com.linkedin.android.spyglass.suggestions.SuggestionsResult;
 import com.linkedin.android.spyglass.suggestions.impl.BasicSuggestionsListBuilder;
 import com.linkedin.android.spyglass.suggestions.interfaces.OnSuggestionsVisibilityChangeListener;
+import com.linkedin.android.spyglass.suggestions.interfaces.SuggestionProvider;
 import com.linkedin.android.spyglass.suggestions.interfaces.SuggestionsListBuilder;
 import com.linkedin.android.spyglass.suggestions.interfaces.SuggestionsResultListener;
 import com.linkedin.android.spyglass.suggestions.interfaces.SuggestionsVisibilityManager;
@@ -55,13 +60,15 @@ import com.linkedin.android.spyglass.tokenization.interfaces.Tokenizer;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 /**
  * Custom view for the RichEditor. Manages three subviews:
  * <p/>
  * 1. EditText - contains text typed by user <br/>
  * 2. TextView - displays count of the number of characters in the EditText <br/>
- * 3. ListView - displays mention suggestions when relevant
+ * 3. ListView - displays mention suggestions when relevant (or a RecyclerView, see
+ * {@link #setUseRecyclerView(boolean)})
  * <p/>
  * <b>XML attributes</b>
  * <p/>
@@ -78,10 +85,14 @@ public class MentionsEditorView extends RelativeLayout implements TextWatcher, Q
     private MentionsEditText mMentionsEditText;
     private int mOriginalInputType = InputType.TYPE_CLASS_TEXT; // Default to plain text
     private ListView mSuggestionsList;
+    private RecyclerView mSuggestionsRecycler;
+    private boolean mUseRecyclerView = false;
 
     private QueryTokenReceiver mHostQueryTokenReceiver;
     private MentionClickReceiver mHostMentionClickReceiver;
     private SuggestionsAdapter mSuggestionsAdapter;
+    private SuggestionsRecyclerAdapter mSuggestionsRecyclerAdapter;
+    private SuggestionProviderRunner mSuggestionProviders;
     private OnSuggestionsVisibilityChangeListener mActionListener;
 
     private boolean mWaitingForFirstResult = false;
@@ -135,12 +146,25 @@ public class MentionsEditorView extends RelativeLayout implements TextWatcher, Q
         mSuggestionsAdapter = new SuggestionsAdapter(context, this, listBuilder);
         mSuggestionsList.setAdapter(mSuggestionsAdapter);
 
+        // Results from any suggestion providers are passed back to the RichEditorView
+        mSuggestionProviders = new SuggestionProviderRunner(this);
+
         // Set the item click listener
         mSuggestionsList.setOnItemClickListener((parent, view, position, id) -> {
             Mentionable mention = (Mentionable) mSuggestionsAdapter.getItem(position);
             if (mMentionsEditText != null) mMentionsEditText.insertMention(mention);
             mSuggestionsAdapter.clear();
         });
+
+        // Set up the RecyclerView that may be used instead of the ListView (see setUseRecyclerView)
+        mSuggestionsRecycler = findViewById(R.id.suggestions_recycler);
+        mSuggestionsRecycler.setLayoutManager(new LinearLayoutManager(context));
+        mSuggestionsRecyclerAdapter = new SuggestionsRecyclerAdapter(context, this, listBuilder);
+        mSuggestionsRecyclerAdapter.setOnSuggestionClickListener(suggestion -> {
+            if (mMentionsEditText != null) mMentionsEditText.insertMention((Mentionable) suggestion);
+            mSuggestionsRecyclerAdapter.clear();
+        });
+        mSuggestionsRecycler.setAdapter(mSuggestionsRecyclerAdapter);
     }
 
     private MentionSpanConfig parseMentionSpanConfigFromAttributes(@Nullable AttributeSet attrs, int defStyleAttr) {
@@ -244,12 +268,27 @@ public class MentionsEditorView extends RelativeLayout implements TextWatcher, Q
     @NonNull
     @Override
     public List<String> onQueryReceived(@NonNull QueryToken queryToken) {
-        // Pass the query token to a host receiver
+        // Pass the query token to a host receiver and start any suggestion providers
+        List<String> buckets = Collections.emptyList();
         if (mHostQueryTokenReceiver != null) {
-            List<String> buckets = mHostQueryTokenReceiver.onQueryReceived(queryToken);
-            mSuggestionsAdapter.notifyQueryTokenReceived(queryToken, buckets);
+            buckets = mHostQueryTokenReceiver.onQueryReceived(queryToken);
+        }
+        if (mSuggestionProviders.hasProviders()) {
+            List<String> providerBuckets = mSuggestionProviders.query(queryToken);
+            if (!providerBuckets.isEmpty()) {
+                buckets = new ArrayList<>(buckets);
+                buckets.addAll(providerBuckets);
+            }
+        }
+        if (mHostQueryTokenReceiver != null || !buckets.isEmpty()) {
+            if (mUseRecyclerView) {
+                mSuggestionsRecyclerAdapter.notifyQueryTokenReceived(queryToken, buckets);
+            } else {
+                mSuggestionsAdapter.notifyQueryTokenReceived(queryToken, buckets);
+            }
         }
-        return Collections.emptyList();
+        // Note: The buckets let the QueryDispatcher track the queries waiting for results
+        return buckets;
     }
 
     /**
@@ -284,12 +323,22 @@ public class MentionsEditorView extends RelativeLayout implements TextWatcher, Q
     public void onReceiveSuggestionsResult(final @NonNull SuggestionsResult result, final @NonNull String bucket) {
         // Add the mentions and notify the editor/dropdown of the changes on the UI thread
         post(() -> {
-            if (mSuggestionsAdapter != null) {
+            if (mUseRecyclerView) {
+                mSuggestionsRecyclerAdapter.addSuggestions(result, bucket, mMentionsEditText);
+            } else if (mSuggestionsAdapter != null) {
                 mSuggestionsAdapter.addSuggestions(result, bucket, mMentionsEditText);
             }
+            if (mMentionsEditText != null) {
+                mMentionsEditText.getQueryDispatcher().onResultReceived(result.getQueryToken(), bucket);
+            }
             // Make sure the list is scrolled to the top once you receive the first query result
-            if (mWaitingForFirstResult && mSuggestionsList != null) {
-                mSuggestionsList.setSelection(0);
+            // Note: Results of cancelled queries are still reported, but are never displayed
+            if (mWaitingForFirstResult && mSuggestionsList != null && !result.getQueryToken().isCancelled()) {
+                if (mUseRecyclerView) {
+                    mSuggestionsRecycler.scrollToPosition(0);
+                } else {
+                    mSuggestionsList.setSelection(0);
+                }
                 mWaitingForFirstResult = false;
             }
         });
@@ -312,7 +361,7 @@ public class MentionsEditorView extends RelativeLayout implements TextWatcher, Q
         // Change view depending on whether suggestions are being shown or not
         if (display) {
             disableSpellingSuggestions(true);
-            mSuggestionsList.setVisibility(View.VISIBLE);
+            getSuggestionsView().setVisibility(View.VISIBLE);
             int cursorLine = getCurrentCursorLine();
             Layout layout = mMentionsEditText.getLayout();
             mMentionsEditText.setVerticalScrollBarEnabled(false);
@@ -326,7 +375,7 @@ public class MentionsEditorView extends RelativeLayout implements TextWatcher, Q
             }
         } else {
             disableSpellingSuggestions(false);
-            mSuggestionsList.setVisibility(View.GONE);
+            getSuggestionsView().setVisibility(View.GONE);
             mMentionsEditText.setVerticalScrollBarEnabled(true);
             // Notify action listener that list was hidden
             if (mActionListener != null) {
@@ -352,7 +401,15 @@ public class MentionsEditorView extends RelativeLayout implements TextWatcher, Q
      * {@inheritDoc}
      */
     public boolean isDisplayingSuggestions() {
-        return mSuggestionsList.getVisibility() == View.VISIBLE;
+        return getSuggestionsView().getVisibility() == View.VISIBLE;
+    }
+
+    /**
+     * @return the view that the suggestions are displayed in (see {@link #setUseRecyclerView(boolean)})
+     */
+    @NonNull
+    private View getSuggestionsView() {
+        return mUseRecyclerView ? mSuggestionsRecycler : mSuggestionsList;
     }
 
     /**
@@ -371,11 +428,16 @@ public class MentionsEditorView extends RelativeLayout implements TextWatcher, Q
         if (start == -1 || end == -1) {
             return;
         }
+        int currentInputType = mMentionsEditText.getInputType();
         if (disable) {
             // store the previous input type
-            mOriginalInputType = mMentionsEditText.getInputType();
+            mOriginalInputType = currentInputType;
+        }
+        // Only change the input type if it differs (i.e. not if suggestions were already disabled by the app)
+        int inputType = disable ? InputType.TYPE_TEXT_FLAG_NO_SUGGESTIONS : mOriginalInputType;
+        if (currentInputType != inputType) {
+            mMentionsEditText.setRawInputType(inputType);
         }
-        mMentionsEditText.setRawInputType(disable ? InputType.TYPE_TEXT_FLAG_NO_SUGGESTIONS : mOriginalInputType);
         mMentionsEditText.setSelection(start, end);
     }
 
@@ -542,6 +604,84 @@ public class MentionsEditorView extends RelativeLayout implements TextWatcher, Q
         }
     }
 
+    /**
+     * Register a {@link com.linkedin.android.spyglass.ui.MentionsEditText.BatchMentionWatcher} in order to receive all
+     * of the changes to mentions made by each edit at once.
+     *
+     * @param watcher the {@link com.linkedin.android.spyglass.ui.MentionsEditText.BatchMentionWatcher} to add
+     */
+    public void addBatchMentionWatcher(@NonNull MentionsEditText.BatchMentionWatcher watcher) {
+        if (mMentionsEditText != null) {
+            mMentionsEditText.addBatchMentionWatcher(watcher);
+        }
+    }
+
+    /**
+     * Remove a {@link com.linkedin.android.spyglass.ui.MentionsEditText.BatchMentionWatcher} from receiving anymore
+     * changes to mentions.
+     *
+     * @param watcher the {@link com.linkedin.android.spyglass.ui.MentionsEditText.BatchMentionWatcher} to remove
+     */
+    public void removeBatchMentionWatcher(@NonNull MentionsEditText.BatchMentionWatcher watcher) {
+        if (mMentionsEditText != null) {
+            mMentionsEditText.removeBatchMentionWatcher(watcher);
+        }
+    }
+
+    /**
+     * Convenience method for {@link MentionsEditText#insertMention(Mentionable, int, int)}.
+     *
+     * @param mention {@link Mentionable} to insert a span for
+     * @param start   the start of the range to replace
+     * @param end     the end of the range to replace
+     */
+    public void insertMention(@NonNull Mentionable mention, int start, int end) {
+        if (mMentionsEditText != null) {
+            mMentionsEditText.insertMention(mention, start, end);
+        }
+    }
+
+    /**
+     * Convenience method for {@link MentionsEditText#beginMentionBatch()}.
+     */
+    public void beginMentionBatch() {
+        if (mMentionsEditText != null) {
+            mMentionsEditText.beginMentionBatch();
+        }
+    }
+
+    /**
+     * Convenience method for {@link MentionsEditText#endMentionBatch()}.
+     */
+    public void endMentionBatch() {
+        if (mMentionsEditText != null) {
+            mMentionsEditText.endMentionBatch();
+        }
+    }
+
+    /**
+     * Convenience method for {@link MentionsEditText#setQueryDispatcherConfig(QueryDispatcherConfig)}.
+     *
+     * @param config the {@link QueryDispatcherConfig} to use
+     */
+    public void setQueryDispatcherConfig(@NonNull QueryDispatcherConfig config) {
+        if (mMentionsEditText != null) {
+            mMentionsEditText.setQueryDispatcherConfig(config);
+        }
+    }
+
+    /**
+     * Convenience method for {@link MentionsEditText#setEditTimingListener(MentionsEditText.EditTimingListener)}.
+     *
+     * @param listener the {@link com.linkedin.android.spyglass.ui.MentionsEditText.EditTimingListener}, or null to
+     *                 stop timing edits
+     */
+    public void setEditTimingListener(@Nullable MentionsEditText.EditTimingListener listener) {
+        if (mMentionsEditText != null) {
+            mMentionsEditText.setEditTimingListener(listener);
+        }
+    }
+
     // --------------------------------------------------
     // RichEditorView-specific Setters
     // --------------------------------------------------
@@ -557,6 +697,84 @@ public class MentionsEditorView extends RelativeLayout implements TextWatcher, Q
         mHostQueryTokenReceiver = client;
     }
 
+    /**
+     * Adds a {@link SuggestionProvider} to be queried along with the {@link QueryTokenReceiver}. The providers are
+     * called in parallel, and the suggestions from each one are shown as soon as they arrive.
+     *
+     * @param provider the {@link SuggestionProvider} to add (replacing any provider for the same bucket)
+     */
+    public void addSuggestionProvider(final @NonNull SuggestionProvider provider) {
+        addSuggestionProvider(provider, SuggestionProviderRunner.NO_DEADLINE);
+    }
+
+    /**
+     * Adds a {@link SuggestionProvider} that must return its suggestions for each query within the given time. If it
+     * does not, its bucket is treated as empty for that query and any suggestions it returns later are ignored.
+     *
+     * @param provider       the {@link SuggestionProvider} to add (replacing any provider for the same bucket)
+     * @param deadlineMillis the deadline for the provider, or {@link SuggestionProviderRunner#NO_DEADLINE}
+     */
+    public void addSuggestionProvider(final @NonNull SuggestionProvider provider, final long deadlineMillis) {
+        mSuggestionProviders.addProvider(provider, deadlineMillis);
+    }
+
+    /**
+     * Removes the {@link SuggestionProvider} for the given bucket.
+     *
+     * @param bucket the bucket of the provider to remove
+     * @return true if a provider was removed
+     */
+    public boolean removeSuggestionProvider(final @NonNull String bucket) {
+        return mSuggestionProviders.removeProvider(bucket);
+    }
+
+    /**
+     * Sets the {@link Executor} that the {@link SuggestionProvider}s are called on.
+     *
+     * @param executor the {@link Executor} to use, or null to use a shared thread pool
+     */
+    public void setSuggestionProviderExecutor(final @Nullable Executor executor) {
+        mSuggestionProviders.setExecutor(executor);
+    }
+
+    /**
+     * Sets the {@link Executor} that the list of suggestions is built on (see
+     * {@link SuggestionsAdapter#setBuildExecutor(Executor)}).
+     *
+     * @param executor the {@link Executor} to use, or null to use a shared background thread
+     */
+    public void setSuggestionsListBuildExecutor(final @Nullable Executor executor) {
+        if (mSuggestionsAdapter != null) {
+            mSuggestionsAdapter.setBuildExecutor(executor);
+            mSuggestionsRecyclerAdapter.setBuildExecutor(executor);
+        }
+    }
+
+    /**
+     * Sets whether the suggestions are displayed in a {@link RecyclerView} rather than a {@link ListView}. The
+     * {@link RecyclerView} only updates the rows that changed when new suggestions arrive (see
+     * {@link SuggestionsRecyclerAdapter}), so it is better suited to long lists that change on every keystroke.
+     *
+     * @param useRecyclerView true to use a {@link RecyclerView}
+     */
+    public void setUseRecyclerView(final boolean useRecyclerView) {
+        if (useRecyclerView == mUseRecyclerView) {
+            return;
+        }
+
+        // Hide and empty the current view, then query again so that the new one is shown once it has suggestions
+        displaySuggestions(false);
+        if (mUseRecyclerView) {
+            mSuggestionsRecyclerAdapter.clear();
+        } else {
+            mSuggestionsAdapter.clear();
+        }
+        mUseRecyclerView = useRecyclerView;
+        if (mMentionsEditText != null) {
+            mMentionsEditText.resubmitCurrentQuery();
+        }
+    }
+
     /**
      * Sets the receiver of any mentions clicked
      *
@@ -584,6 +802,7 @@ public class MentionsEditorView extends RelativeLayout implements TextWatcher, Q
         if (mMentionsEditText != null && mSuggestionsAdapter != null) {
             mMentionsEditText.setSuggestionsVisibilityManager(suggestionsVisibilityManager);
             mSuggestionsAdapter.setSuggestionsManager(suggestionsVisibilityManager);
+            mSuggestionsRecyclerAdapter.setSuggestionsManager(suggestionsVisibilityManager);
         }
     }
 
@@ -595,6 +814,9 @@ public class MentionsEditorView extends RelativeLayout implements TextWatcher, Q
     public void setSuggestionsListBuilder(final @NonNull SuggestionsListBuilder suggestionsListBuilder) {
         if (mSuggestionsAdapter != null) {
             mSuggestionsAdapter.setSuggestionsListBuilder(suggestionsListBuilder);
+            mSuggestionsRecyclerAdapter.setSuggestionsListBuilder(suggestionsListBuilder);
+            // Note: The ListView only reads the number of view types when its adapter is set
+            mSuggestionsList.setAdapter(mSuggestionsAdapter);
         }
     }
 }
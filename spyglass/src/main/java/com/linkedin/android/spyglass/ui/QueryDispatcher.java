@@ -0,0 +1,370 @@
+/*
+ * Copyright 2015 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package com.linkedin.android.spyglass.ui;
+
+import android.os.SystemClock;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.linkedin.android.spyglass.suggestions.interfaces.SuggestionsResultListener;
+import com.linkedin.android.spyglass.tokenization.QueryToken;
+import com.linkedin.android.spyglass.tokenization.interfaces.QueryTokenReceiver;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Stage between the {@link MentionsEditText} and its {@link QueryTokenReceiver} that decides when each query is sent,
+ * as configured by a {@link QueryDispatcherConfig}. Queries may be debounced (so that only the last query typed in a
+ * quick succession of keystrokes is sent), deduplicated, and limited in how many may be waiting for results at once.
+ * At most one query waits to be sent at any time: a newer query replaces it.
+ * <p>
+ * Each query sent is given the next generation number, and the query sent before it is cancelled (see
+ * {@link QueryToken#isCancelled()}), so that receivers may stop searching for it and its results are dropped.
+ * <p>
+ * If {@link QueryDispatcherConfig#MAX_IN_FLIGHT} is set, the dispatcher must be told of each result through
+ * {@link #onResultReceived(QueryToken, String)} (the {@link MentionsEditorView} does this itself). Results are matched
+ * to the queries in flight by generation, so the results of an older query for the same text are not mistaken for
+ * those of the latest one. Results that carry a {@link QueryToken} created by the receiver (which has no generation)
+ * are matched to the oldest query in flight with the same token string. All methods must be called on the UI thread.
+ */
+public class QueryDispatcher {
+
+    private final View mView;
+    private QueryDispatcherConfig mConfig = new QueryDispatcherConfig.Builder().build();
+
+    @Nullable
+    private QueryTokenReceiver mQueryTokenReceiver;
+
+    // Query waiting for the debounce window to pass, or for a query in flight to complete
+    @Nullable
+    private QueryToken mPendingQuery;
+
+    @Nullable
+    private QueryToken mLastDispatchedQuery;
+
+    // Generation of the last query sent (see QueryToken#getGeneration)
+    private long mGeneration = 0;
+
+    // Queries waiting for results keyed by their generation, in the order they were sent (only tracked if MAX_IN_FLIGHT
+    // is set)
+    private final Map<Long, InFlightQuery> mInFlightQueries = new LinkedHashMap<>();
+
+    // Stops waiting for the results of cancelled queries once their time is up (scheduled for the earliest expiry)
+    private final Runnable mExpiryRunnable = this::expireInFlightQueries;
+
+    // Whether the pending query is waiting for the debounce window to pass
+    private boolean mDebouncing = false;
+    private final Runnable mDebounceRunnable = () -> {
+        mDebouncing = false;
+        dispatchPendingQuery();
+    };
+
+    private int mSubmittedCount = 0;
+    private int mDispatchedCount = 0;
+    private int mSuppressedCount = 0;
+
+    QueryDispatcher(@NonNull View view) {
+        mView = view;
+    }
+
+    // --------------------------------------------------
+    // Public Methods
+    // --------------------------------------------------
+
+    /**
+     * Submits the query for the token that was just typed. Depending on the {@link QueryDispatcherConfig}, it is sent to
+     * the {@link QueryTokenReceiver} immediately, later, or not at all.
+     *
+     * @param queryToken the {@link QueryToken} to send
+     */
+    public void submit(@NonNull QueryToken queryToken) {
+        mSubmittedCount++;
+        boolean deduplicate = mConfig.DEDUPLICATE_QUERIES;
+
+        // A query that has not been sent yet is replaced by the new one
+        if (mPendingQuery != null) {
+            if (deduplicate && mPendingQuery.equals(queryToken)) {
+                mSuppressedCount++;
+                return;
+            }
+            mPendingQuery = null;
+            mSuppressedCount++;
+        }
+        cancelDebounce();
+
+        if (deduplicate && queryToken.equals(mLastDispatchedQuery)) {
+            mSuppressedCount++;
+            return;
+        }
+
+        mPendingQuery = queryToken;
+        long debounceMillis = mConfig.DEBOUNCE_MILLIS;
+        if (debounceMillis <= 0 || (mConfig.DISPATCH_FIRST_CHAR_IMMEDIATELY && isFirstCharAfterTrigger(queryToken))) {
+            dispatchPendingQuery();
+        } else {
+            mDebouncing = true;
+            mView.postDelayed(mDebounceRunnable, debounceMillis);
+        }
+    }
+
+    /**
+     * Drops the query waiting to be sent, if any, and cancels the last query sent. Called when there is no longer a
+     * valid token at the cursor.
+     */
+    public void cancel() {
+        cancelDebounce();
+        if (mPendingQuery != null) {
+            mPendingQuery = null;
+            mSuppressedCount++;
+        }
+        cancelLastDispatchedQuery();
+    }
+
+    /**
+     * Tells the dispatcher that the results for one of the buckets of a query have been received (i.e. from
+     * {@link SuggestionsResultListener#onReceiveSuggestionsResult}). Once the results for all of its buckets are
+     * received, the query no longer counts towards {@link QueryDispatcherConfig#MAX_IN_FLIGHT}.
+     *
+     * @param queryToken the {@link QueryToken} the results are for (ideally as sent, with its generation)
+     * @param bucket     the bucket of the results
+     */
+    public void onResultReceived(@NonNull QueryToken queryToken, @NonNull String bucket) {
+        InFlightQuery query = findInFlightQuery(queryToken, bucket);
+        if (query != null) {
+            query.mBuckets.remove(bucket);
+            if (query.mBuckets.isEmpty()) {
+                mInFlightQueries.remove(query.mQueryToken.getGeneration());
+            }
+        }
+        if (!mDebouncing) {
+            dispatchPendingQuery();
+        }
+    }
+
+    @NonNull
+    public QueryDispatcherConfig getConfig() {
+        return mConfig;
+    }
+
+    public void setConfig(@NonNull QueryDispatcherConfig config) {
+        mConfig = config;
+        if (config.MAX_IN_FLIGHT == 0) {
+            clearInFlightQueries();
+        }
+    }
+
+    /**
+     * @return the generation of the last query sent, or zero if no query has been sent
+     */
+    public long getCurrentGeneration() {
+        return mGeneration;
+    }
+
+    /**
+     * @return the number of queries submitted by the {@link MentionsEditText}
+     */
+    public int getSubmittedQueryCount() {
+        return mSubmittedCount;
+    }
+
+    /**
+     * @return the number of queries sent to the {@link QueryTokenReceiver}
+     */
+    public int getDispatchedQueryCount() {
+        return mDispatchedCount;
+    }
+
+    /**
+     * @return the number of queries that were dropped, because they were replaced, duplicated or cancelled
+     */
+    public int getSuppressedQueryCount() {
+        return mSuppressedCount;
+    }
+
+    /**
+     * @return the number of queries that are waiting for results, including cancelled queries whose results are still
+     * expected (only tracked if {@link QueryDispatcherConfig#MAX_IN_FLIGHT} is set)
+     */
+    public int getInFlightQueryCount() {
+        return mInFlightQueries.size();
+    }
+
+    // --------------------------------------------------
+    // Package-Private Methods
+    // --------------------------------------------------
+
+    /**
+     * Sends a query again without deduplicating or debouncing it, replacing any query waiting to be sent. Used when
+     * the suggestions for the current query must be requested again (i.e. for a new list of suggestions). The query
+     * still waits for a query in flight to complete if {@link QueryDispatcherConfig#MAX_IN_FLIGHT} is reached.
+     *
+     * @param queryToken the {@link QueryToken} to send
+     */
+    void resubmit(@NonNull QueryToken queryToken) {
+        mSubmittedCount++;
+        cancelDebounce();
+        if (mPendingQuery != null) {
+            mSuppressedCount++;
+        }
+        mPendingQuery = queryToken;
+        dispatchPendingQuery();
+    }
+
+    /**
+     * Cancels any queries, and stops waiting for the results of the queries in flight. Called when the view is detached.
+     */
+    void release() {
+        cancel();
+        clearInFlightQueries();
+    }
+
+    void setQueryTokenReceiver(@Nullable QueryTokenReceiver queryTokenReceiver) {
+        mQueryTokenReceiver = queryTokenReceiver;
+    }
+
+    // --------------------------------------------------
+    // Private Helper Methods
+    // --------------------------------------------------
+
+    private void dispatchPendingQuery() {
+        QueryToken queryToken = mPendingQuery;
+        if (queryToken == null) {
+            return;
+        }
+
+        // Wait for a query in flight to complete (see onResultReceived)
+        int maxInFlight = mConfig.MAX_IN_FLIGHT;
+        if (maxInFlight > 0 && mInFlightQueries.size() >= maxInFlight) {
+            return;
+        }
+
+        mPendingQuery = null;
+        cancelLastDispatchedQuery();
+        queryToken.setGeneration(++mGeneration);
+        mLastDispatchedQuery = queryToken;
+        mDispatchedCount++;
+        QueryTokenReceiver receiver = mQueryTokenReceiver;
+        if (receiver != null) {
+            List<String> buckets = receiver.onQueryReceived(queryToken);
+            if (maxInFlight > 0 && !buckets.isEmpty()) {
+                mInFlightQueries.put(queryToken.getGeneration(), new InFlightQuery(queryToken, buckets));
+            }
+        }
+    }
+
+    private void cancelLastDispatchedQuery() {
+        QueryToken queryToken = mLastDispatchedQuery;
+        if (queryToken != null) {
+            queryToken.cancel();
+            mLastDispatchedQuery = null;
+
+            // The cancelled query still counts as in flight until its results arrive, but the receiver may never
+            // report them, so stop waiting after a while
+            InFlightQuery query = mInFlightQueries.get(queryToken.getGeneration());
+            if (query != null) {
+                query.mExpiryTime = SystemClock.uptimeMillis() + mConfig.CANCELLED_QUERY_TIMEOUT_MILLIS;
+                scheduleExpiry();
+            }
+        }
+    }
+
+    private void expireInFlightQueries() {
+        long now = SystemClock.uptimeMillis();
+        boolean expired = false;
+        Iterator<InFlightQuery> iterator = mInFlightQueries.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().mExpiryTime <= now) {
+                iterator.remove();
+                expired = true;
+            }
+        }
+        scheduleExpiry();
+        if (expired && !mDebouncing) {
+            dispatchPendingQuery();
+        }
+    }
+
+    /**
+     * Schedules {@link #mExpiryRunnable} for the earliest expiry of the queries in flight, if any of them expire.
+     */
+    private void scheduleExpiry() {
+        mView.removeCallbacks(mExpiryRunnable);
+        long expiryTime = Long.MAX_VALUE;
+        for (InFlightQuery query : mInFlightQueries.values()) {
+            expiryTime = Math.min(expiryTime, query.mExpiryTime);
+        }
+        if (expiryTime != Long.MAX_VALUE) {
+            mView.postDelayed(mExpiryRunnable, Math.max(0, expiryTime - SystemClock.uptimeMillis()));
+        }
+    }
+
+    private void clearInFlightQueries() {
+        mInFlightQueries.clear();
+        mView.removeCallbacks(mExpiryRunnable);
+    }
+
+    /**
+     * Finds the query in flight that a result is for. The query is found by generation if the result has one, or else
+     * (i.e. if the receiver created its own {@link QueryToken}) by the token string.
+     */
+    @Nullable
+    private InFlightQuery findInFlightQuery(@NonNull QueryToken queryToken, @NonNull String bucket) {
+        long generation = queryToken.getGeneration();
+        if (generation != 0) {
+            return mInFlightQueries.get(generation);
+        }
+        for (InFlightQuery query : mInFlightQueries.values()) {
+            if (query.mQueryToken.equals(queryToken) && query.mBuckets.contains(bucket)) {
+                return query;
+            }
+        }
+        return null;
+    }
+
+    private void cancelDebounce() {
+        if (mDebouncing) {
+            mView.removeCallbacks(mDebounceRunnable);
+            mDebouncing = false;
+        }
+    }
+
+    private static boolean isFirstCharAfterTrigger(@NonNull QueryToken queryToken) {
+        return queryToken.isExplicit() && queryToken.getKeywords().length() <= 1;
+    }
+
+    /**
+     * A query that has been sent, and the buckets that have not yet received results for it.
+     */
+    private static class InFlightQuery {
+
+        private final QueryToken mQueryToken;
+        private final Set<String> mBuckets;
+
+        // Time to stop waiting for the results (see SystemClock#uptimeMillis), only set once the query is cancelled
+        private long mExpiryTime = Long.MAX_VALUE;
+
+        private InFlightQuery(@NonNull QueryToken queryToken, @NonNull List<String> buckets) {
+            mQueryToken = queryToken;
+            mBuckets = new HashSet<>(buckets);
+        }
+    }
+}
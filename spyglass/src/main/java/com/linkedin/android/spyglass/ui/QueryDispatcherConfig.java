@@ -0,0 +1,103 @@
+/*
+ * Copyright 2015 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package com.linkedin.android.spyglass.ui;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Class used to configure how the {@link QueryDispatcher} sends queries to the
+ * {@link com.linkedin.android.spyglass.tokenization.interfaces.QueryTokenReceiver}. Instantiate using the
+ * {@link QueryDispatcherConfig.Builder} class. By default, every query is sent as soon as it is typed.
+ */
+public class QueryDispatcherConfig {
+
+    // Time to wait after a query is typed before sending it, in case it is replaced by the next keystroke
+    // Note: No query is delayed if this is zero
+    public final long DEBOUNCE_MILLIS;
+
+    // Whether a query for a trigger alone, or a trigger followed by one character, is sent without waiting
+    public final boolean DISPATCH_FIRST_CHAR_IMMEDIATELY;
+
+    // Whether a query identical to the previous one sent (or waiting to be sent) is dropped
+    public final boolean DEDUPLICATE_QUERIES;
+
+    // Max number of queries that may be waiting for results at once (later queries wait for one of them to complete)
+    // Note: There is no limit if this is zero. Otherwise, the results must be reported to the QueryDispatcher. Queries
+    // that were cancelled (see QueryToken#isCancelled) still count until their results are reported, or until
+    // CANCELLED_QUERY_TIMEOUT_MILLIS has passed
+    public final int MAX_IN_FLIGHT;
+
+    // Time to keep waiting for the results of a cancelled query, as a receiver may stop a cancelled search early
+    // without reporting any results (only used if MAX_IN_FLIGHT is set)
+    public final long CANCELLED_QUERY_TIMEOUT_MILLIS;
+
+    private QueryDispatcherConfig(final long debounceMillis,
+                                  final boolean dispatchFirstCharImmediately,
+                                  final boolean deduplicateQueries,
+                                  final int maxInFlight,
+                                  final long cancelledQueryTimeoutMillis) {
+        DEBOUNCE_MILLIS = debounceMillis;
+        DISPATCH_FIRST_CHAR_IMMEDIATELY = dispatchFirstCharImmediately;
+        DEDUPLICATE_QUERIES = deduplicateQueries;
+        MAX_IN_FLIGHT = maxInFlight;
+        CANCELLED_QUERY_TIMEOUT_MILLIS = cancelledQueryTimeoutMillis;
+    }
+
+    public static class Builder {
+
+        // Default values for configuration
+        private long debounceMillis = 0;
+        private boolean dispatchFirstCharImmediately = true;
+        private boolean deduplicateQueries = false;
+        private int maxInFlight = 0;
+        private long cancelledQueryTimeoutMillis = 1000;
+
+        @NonNull
+        public Builder setDebounceMillis(long debounceMillis) {
+            this.debounceMillis = Math.max(0, debounceMillis);
+            return this;
+        }
+
+        @NonNull
+        public Builder setDispatchFirstCharImmediately(boolean dispatchFirstCharImmediately) {
+            this.dispatchFirstCharImmediately = dispatchFirstCharImmediately;
+            return this;
+        }
+
+        @NonNull
+        public Builder setDeduplicateQueries(boolean deduplicateQueries) {
+            this.deduplicateQueries = deduplicateQueries;
+            return this;
+        }
+
+        @NonNull
+        public Builder setMaxInFlight(int maxInFlight) {
+            this.maxInFlight = Math.max(0, maxInFlight);
+            return this;
+        }
+
+        @NonNull
+        public Builder setCancelledQueryTimeoutMillis(long cancelledQueryTimeoutMillis) {
+            this.cancelledQueryTimeoutMillis = Math.max(0, cancelledQueryTimeoutMillis);
+            return this;
+        }
+
+        @NonNull
+        public QueryDispatcherConfig build() {
+            return new QueryDispatcherConfig(debounceMillis, dispatchFirstCharImmediately, deduplicateQueries,
+                    maxInFlight, cancelledQueryTimeoutMillis);
+        }
+    }
+}
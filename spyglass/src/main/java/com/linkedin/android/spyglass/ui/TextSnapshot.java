@@ -0,0 +1,77 @@
+/*
+ * Copyright 2015 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package com.linkedin.android.spyglass.ui;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Read-only view of the text in the {@link MentionsEditText}, given to a
+ * {@link MentionsEditText.MentionWatcher} in place of a copy of the text. The characters are read from the text on
+ * demand, and a {@link String} is only created (once) if {@link #toString()} is called.
+ * <p>
+ * Since it reads from the text that is being edited, it is only valid for the duration of the callback that it was
+ * given to; call {@link #toString()} to keep a copy of it.
+ */
+final class TextSnapshot implements CharSequence {
+
+    private final CharSequence mText;
+
+    @Nullable
+    private String mString;
+
+    private TextSnapshot(@NonNull CharSequence text) {
+        mText = text;
+    }
+
+    /**
+     * @param text the current text
+     * @return a view of the current text
+     */
+    @NonNull
+    static TextSnapshot of(@NonNull CharSequence text) {
+        return new TextSnapshot(text);
+    }
+
+    @Override
+    public int length() {
+        return mText.length();
+    }
+
+    @Override
+    public char charAt(int index) {
+        return mText.charAt(index);
+    }
+
+    @NonNull
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        if (start < 0 || end > length() || start > end) {
+            throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " + length());
+        }
+        return mText.subSequence(start, end).toString();
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        String string = mString;
+        if (string == null) {
+            string = mText.toString();
+            mString = string;
+        }
+        return string;
+    }
+}
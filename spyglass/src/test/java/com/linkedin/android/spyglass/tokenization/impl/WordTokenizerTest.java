@@ -0,0 +1,133 @@
+/*
+ * Copyright 2015 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+
+package com.linkedin.android.spyglass.tokenization.impl;
+
+import android.text.Spanned;
+import android.text.SpannableStringBuilder;
+
+import androidx.annotation.NonNull;
+
+import com.linkedin.android.spyglass.tokenization.CandidateToken;
+import com.linkedin.android.spyglass.tokenization.interfaces.Tokenizer;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks the tokens found by the {@link WordTokenizer}, in particular with a line separator longer than one character.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class WordTokenizerTest {
+
+    private static final String[] TEXTS = {
+            "alice\r\nbob",
+            "@alice\r\n@bob and\r\nx\r\n@carol",
+            "one two\r\n\r\nthree @four five\r\n",
+            "\r\n@a\r\nb c\r\n",
+    };
+
+    @Test
+    public void lineStartsAfterWholeSeparator() {
+        WordTokenizer tokenizer = createTokenizer(" ");
+        Spanned text = new SpannableStringBuilder("alice\r\nbob");
+
+        // The token on the second line starts after the "\n" of the separator, not on it
+        assertEquals(7, tokenizer.findTokenStart(text, text.length()));
+        assertEquals(10, tokenizer.findTokenEnd(text, text.length()));
+    }
+
+    @Test
+    public void findAllTokensMatchesTokensAtEachCursor() {
+        for (String wordBreakChars : new String[] {" ", " \r\n"}) {
+            WordTokenizer tokenizer = createTokenizer(wordBreakChars);
+            for (String string : TEXTS) {
+                Spanned text = new SpannableStringBuilder(string);
+                assertTokens(findTokensAtEachCursor(tokenizer, text), tokenizer.findAllTokens(text));
+            }
+        }
+    }
+
+    // --------------------------------------------------
+    // Helper Methods
+    // --------------------------------------------------
+
+    @NonNull
+    private static WordTokenizer createTokenizer(@NonNull String wordBreakChars) {
+        WordTokenizerConfig config = new WordTokenizerConfig.Builder()
+                .setLineSeparator("\r\n")
+                .setWordBreakChars(wordBreakChars)
+                .setThreshold(1)
+                .setMaxNumKeywords(1)
+                .build();
+        return new WordTokenizer(config);
+    }
+
+    /**
+     * Finds the tokens with the default implementation of {@link Tokenizer#findAllTokens(Spanned)}, which looks up the
+     * token at each cursor independently.
+     */
+    @NonNull
+    private static List<CandidateToken> findTokensAtEachCursor(@NonNull final WordTokenizer tokenizer,
+                                                               @NonNull Spanned text) {
+        Tokenizer lookup = new Tokenizer() {
+            @Override
+            public int findTokenStart(@NonNull Spanned text, int cursor) {
+                return tokenizer.findTokenStart(text, cursor);
+            }
+
+            @Override
+            public int findTokenEnd(@NonNull Spanned text, int cursor) {
+                return tokenizer.findTokenEnd(text, cursor);
+            }
+
+            @Override
+            public boolean isValidMention(@NonNull Spanned text, int start, int end) {
+                return tokenizer.isValidMention(text, start, end);
+            }
+
+            @NonNull
+            @Override
+            public Spanned terminateToken(@NonNull Spanned text) {
+                return tokenizer.terminateToken(text);
+            }
+
+            @Override
+            public boolean isExplicitChar(char c) {
+                return tokenizer.isExplicitChar(c);
+            }
+
+            @Override
+            public boolean isWordBreakingChar(char c) {
+                return tokenizer.isWordBreakingChar(c);
+            }
+        };
+        return lookup.findAllTokens(text);
+    }
+
+    private static void assertTokens(@NonNull List<CandidateToken> expected, @NonNull List<CandidateToken> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getStart(), actual.get(i).getStart());
+            assertEquals(expected.get(i).getEnd(), actual.get(i).getEnd());
+            assertEquals(expected.get(i).getExplicitTrigger(), actual.get(i).getExplicitTrigger());
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2015 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+
+package com.linkedin.android.spyglass.ui;
+
+import android.os.Parcel;
+import android.text.Editable;
+import android.text.SpannableStringBuilder;
+import android.text.Spanned;
+
+import androidx.annotation.NonNull;
+
+import com.linkedin.android.spyglass.mentions.MentionSpan;
+import com.linkedin.android.spyglass.mentions.Mentionable;
+import com.linkedin.android.spyglass.tokenization.impl.WordTokenizer;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks how the {@link MentionsEditText} reports the changes it makes to mentions to its watchers.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class MentionsEditTextTest {
+
+    private MentionsEditText mEditText;
+    private final List<DeletedMention> mDeletedMentions = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        mEditText = new MentionsEditText(RuntimeEnvironment.application);
+        mEditText.setTokenizer(new WordTokenizer());
+        mEditText.addMentionWatcher(new MentionsEditText.MentionWatcher() {
+            @Override
+            public void onMentionAdded(@NonNull Mentionable mention, @NonNull String text, int start, int end) {
+            }
+
+            @Override
+            public void onMentionDeleted(@NonNull Mentionable mention, @NonNull String text, int start, int end) {
+                mDeletedMentions.add(new DeletedMention(mention, text, start, end));
+            }
+
+            @Override
+            public void onMentionPartiallyDeleted(@NonNull Mentionable mention, @NonNull String text, int start,
+                                                  int end) {
+            }
+        });
+    }
+
+    @Test
+    public void mentionWatcherGetsTextBeforeEachDeletion() {
+        // Both mentions are deleted by the same edit, one after the other
+        SpannableStringBuilder replacement = new SpannableStringBuilder("Hi Alice and Bob!");
+        replacement.setSpan(createDeletedMentionSpan("Alice"), 3, 8, Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+        replacement.setSpan(createDeletedMentionSpan("Bob"), 13, 16, Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+        Editable text = mEditText.getText();
+        text.replace(0, text.length(), replacement);
+
+        // As before the changes were batched, each watcher call gets the text right before that mention was deleted,
+        // and the position of the mention within that text
+        assertEquals(2, mDeletedMentions.size());
+        String expectedText = "Hi Alice and Bob!";
+        for (DeletedMention deleted : mDeletedMentions) {
+            assertEquals(expectedText, deleted.text);
+            String name = deleted.mention.getSuggestiblePrimaryText();
+            assertEquals(name, expectedText.substring(deleted.start, deleted.end));
+            expectedText = expectedText.substring(0, deleted.start) + expectedText.substring(deleted.end);
+        }
+        assertEquals("Hi  and !", expectedText);
+        assertEquals(expectedText, mEditText.getText().toString());
+    }
+
+    // --------------------------------------------------
+    // Helper Methods
+    // --------------------------------------------------
+
+    @NonNull
+    private static MentionSpan createDeletedMentionSpan(@NonNull String name) {
+        MentionSpan span = new MentionSpan(new TestMention(name), null, 0, name.length());
+        span.setDisplayMode(Mentionable.MentionDisplayMode.NONE);
+        return span;
+    }
+
+    private static class DeletedMention {
+        final Mentionable mention;
+        final String text;
+        final int start;
+        final int end;
+
+        DeletedMention(@NonNull Mentionable mention, @NonNull String text, int start, int end) {
+            this.mention = mention;
+            this.text = text;
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    private static class TestMention implements Mentionable {
+
+        private final String mName;
+
+        TestMention(@NonNull String name) {
+            mName = name;
+        }
+
+        @NonNull
+        @Override
+        public String getTextForDisplayMode(@NonNull MentionDisplayMode mode) {
+            return (mode == MentionDisplayMode.NONE) ? "" : mName;
+        }
+
+        @NonNull
+        @Override
+        public MentionDeleteStyle getDeleteStyle() {
+            return MentionDeleteStyle.FULL_DELETE;
+        }
+
+        @Override
+        public int getSuggestibleId() {
+            return mName.hashCode();
+        }
+
+        @NonNull
+        @Override
+        public String getSuggestiblePrimaryText() {
+            return mName;
+        }
+
+        @Override
+        public int describeContents() {
+            return 0;
+        }
+
+        @Override
+        public void writeToParcel(Parcel dest, int flags) {
+            dest.writeString(mName);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2015 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+
+package com.linkedin.android.spyglass.ui;
+
+import android.text.InputType;
+
+import com.linkedin.android.spyglass.R;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.shadows.ShadowLooper;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks how the {@link MentionsEditorView} changes the {@link MentionsEditText} as the suggestions are shown and
+ * hidden.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class MentionsEditorViewTest {
+
+    private MentionsEditorView mEditorView;
+    private MentionsEditText mEditText;
+
+    @Before
+    public void setUp() {
+        mEditorView = new MentionsEditorView(RuntimeEnvironment.application);
+        mEditText = mEditorView.findViewById(R.id.text_editor);
+        mEditText.setText("hello world");
+        mEditText.setSelection(3, 8);
+        ShadowLooper.idleMainLooper();
+    }
+
+    @Test
+    public void togglingSuggestionsKeepsSelectionWithoutRestartingInput() {
+        int inputType = mEditText.getInputType();
+        int restartCount = mEditText.getInputRestartCount();
+
+        mEditorView.displaySuggestions(true);
+        assertEquals(InputType.TYPE_TEXT_FLAG_NO_SUGGESTIONS, mEditText.getInputType());
+        assertSelection(3, 8);
+
+        mEditorView.displaySuggestions(false);
+        assertEquals(inputType, mEditText.getInputType());
+        assertSelection(3, 8);
+
+        ShadowLooper.idleMainLooper();
+        assertEquals(restartCount, mEditText.getInputRestartCount());
+    }
+
+    @Test
+    public void togglingSuggestionsKeepsUnchangedInputType() {
+        // Spelling suggestions are already disabled by the app, so the input type is left as it is
+        mEditorView.setInputType(InputType.TYPE_TEXT_FLAG_NO_SUGGESTIONS);
+        mEditText.setSelection(3, 8);
+        int restartCount = mEditText.getInputRestartCount();
+
+        mEditorView.displaySuggestions(true);
+        assertEquals(InputType.TYPE_TEXT_FLAG_NO_SUGGESTIONS, mEditText.getInputType());
+        assertSelection(3, 8);
+
+        mEditorView.displaySuggestions(false);
+        assertEquals(InputType.TYPE_TEXT_FLAG_NO_SUGGESTIONS, mEditText.getInputType());
+        assertSelection(3, 8);
+
+        ShadowLooper.idleMainLooper();
+        assertEquals(restartCount, mEditText.getInputRestartCount());
+    }
+
+    // --------------------------------------------------
+    // Helper Methods
+    // --------------------------------------------------
+
+    private void assertSelection(int start, int end) {
+        assertEquals(start, mEditText.getSelectionStart());
+        assertEquals(end, mEditText.getSelectionEnd());
+    }
+}